@@ -0,0 +1,337 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * {@link PaginationTokenCodec} with a compact binary layout, encoded in URL-safe base64 without padding.
+ *
+ * <p>Each key is written as a type tag followed by its value: nothing for {@code null}, a zigzag varint for
+ * {@link Integer} and {@link Long}, and a varint length followed by UTF-8 bytes for {@link String}. With a
+ * secret, a truncated HMAC-SHA256 of the layout is appended, and tokens which do not match it are rejected.</p>
+ *
+ * <pre>
+ * PaginationTokenCodec codec = new BinaryPaginationTokenCodec(secret);
+ * ChunkedResources&lt;User&gt; resources = new ChunkedResources&lt;&gt;("users", chunk, User::getId, codec);
+ * PaginationKeys keys = codec.decode(paginationToken);
+ * </pre>
+ */
+public class BinaryPaginationTokenCodec implements PaginationTokenCodec {
+	
+	/**
+	 * default number of bytes of the HMAC appended to tokens.
+	 */
+	public static final int DEFAULT_TAG_LENGTH = 8;
+	
+	private static final String ALGORITHM = "HmacSHA256";
+	
+	private static final byte VERSION = 1;
+	
+	private static final byte NULL = 0;
+	
+	private static final byte INT = 1;
+	
+	private static final byte LONG = 2;
+	
+	private static final byte STRING = 3;
+	
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+	
+	private final Mac mac;
+	
+	private final int tagLength;
+	
+	
+	/**
+	 * Creates a {@link BinaryPaginationTokenCodec} instance without tamper check.
+	 */
+	public BinaryPaginationTokenCodec() {
+		this.mac = null;
+		this.tagLength = 0;
+	}
+	
+	/**
+	 * Creates a {@link BinaryPaginationTokenCodec} instance with {@link #DEFAULT_TAG_LENGTH}.
+	 *
+	 * @param secret the HMAC key, must not be empty
+	 */
+	public BinaryPaginationTokenCodec(byte[] secret) {
+		this(secret, DEFAULT_TAG_LENGTH);
+	}
+	
+	/**
+	 * Creates a {@link BinaryPaginationTokenCodec} instance.
+	 *
+	 * @param secret the HMAC key, must not be empty
+	 * @param tagLength the number of bytes of the HMAC appended to tokens, between 4 and 32
+	 */
+	public BinaryPaginationTokenCodec(byte[] secret, int tagLength) {
+		if (secret == null || secret.length == 0) {
+			throw new IllegalArgumentException("The secret must not be empty");
+		}
+		if (tagLength < 4 || tagLength > 32) {
+			throw new IllegalArgumentException("The tagLength must be between 4 and 32");
+		}
+		try {
+			this.mac = Mac.getInstance(ALGORITHM);
+			this.mac.init(new SecretKeySpec(secret, ALGORITHM));
+		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
+			throw new IllegalStateException(e);
+		}
+		this.tagLength = tagLength;
+	}
+	
+	@Override
+	public String encode(PaginationKeys keys) {
+		Output out = new Output();
+		out.write(VERSION);
+		writeKey(out, keys.getFirst());
+		writeKey(out, keys.getLast());
+		if (mac != null) {
+			out.write(sign(out.bytes, out.count), 0, tagLength);
+		}
+		return new String(ENCODER.encode(Arrays.copyOf(out.bytes, out.count)), StandardCharsets.ISO_8859_1);
+	}
+	
+	@Override
+	public PaginationKeys decode(String paginationToken) {
+		if (paginationToken == null) {
+			throw new IllegalArgumentException("The paginationToken must not be null");
+		}
+		byte[] bytes = DECODER.decode(paginationToken.getBytes(StandardCharsets.ISO_8859_1));
+		int length = bytes.length - tagLength;
+		if (length <= 0) {
+			throw new IllegalArgumentException("Invalid paginationToken: " + paginationToken);
+		}
+		if (mac != null) {
+			byte[] expected = Arrays.copyOf(sign(bytes, length), tagLength);
+			if (MessageDigest.isEqual(expected, Arrays.copyOfRange(bytes, length, bytes.length)) == false) {
+				throw new IllegalArgumentException("Tampered paginationToken: " + paginationToken);
+			}
+		}
+		Input in = new Input(bytes, length, paginationToken);
+		if (in.read() != VERSION) {
+			throw new IllegalArgumentException("Unsupported paginationToken: " + paginationToken);
+		}
+		PaginationKeys keys = new PaginationKeys(readKey(in), readKey(in));
+		if (in.position != length) {
+			throw new IllegalArgumentException("Invalid paginationToken: " + paginationToken);
+		}
+		return keys;
+	}
+	
+	/**
+	 * Computes HMAC with a clone of the initialized {@link Mac}, which is not thread safe.
+	 */
+	private byte[] sign(byte[] bytes, int length) {
+		Mac clone;
+		try {
+			clone = (Mac) mac.clone();
+		} catch (CloneNotSupportedException e) {
+			synchronized (mac) {
+				mac.update(bytes, 0, length);
+				return mac.doFinal();
+			}
+		}
+		clone.update(bytes, 0, length);
+		return clone.doFinal();
+	}
+	
+	private static void writeKey(Output out, Object key) {
+		if (key == null) {
+			out.write(NULL);
+		} else if (key instanceof Integer) {
+			int value = (Integer) key;
+			out.write(INT);
+			out.writeVarint(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+		} else if (key instanceof Long) {
+			long value = (Long) key;
+			out.write(LONG);
+			out.writeVarint((value << 1) ^ (value >> 63));
+		} else if (key instanceof String) {
+			out.write(STRING);
+			out.writeUtf8((String) key);
+		} else {
+			throw new IllegalArgumentException("Unsupported key type: " + key.getClass().getName());
+		}
+	}
+	
+	private static Object readKey(Input in) {
+		int type = in.read();
+		switch (type) {
+			case NULL:
+				return null;
+			case INT:
+				long zigzag = in.readVarint();
+				return (int) (zigzag >>> 1) ^ -(int) (zigzag & 1);
+			case LONG:
+				long value = in.readVarint();
+				return (value >>> 1) ^ -(value & 1);
+			case STRING:
+				int length = (int) in.readVarint();
+				return new String(in.bytes, in.skip(length), length, StandardCharsets.UTF_8);
+			default:
+				throw in.invalid();
+		}
+	}
+	
+	
+	/**
+	 * Growable byte array, which encodes varints and UTF-8 in place.
+	 */
+	private static class Output {
+		
+		private byte[] bytes = new byte[64];
+		
+		private int count;
+		
+		
+		void write(int b) {
+			ensureCapacity(count + 1);
+			bytes[count++] = (byte) b;
+		}
+		
+		void write(byte[] b, int off, int len) {
+			ensureCapacity(count + len);
+			System.arraycopy(b, off, bytes, count, len);
+			count += len;
+		}
+		
+		void writeVarint(long value) {
+			long remaining = value;
+			while ((remaining & ~0x7FL) != 0) {
+				write((int) (remaining & 0x7F) | 0x80);
+				remaining >>>= 7;
+			}
+			write((int) remaining);
+		}
+		
+		void writeUtf8(String s) {
+			int length = 0;
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c < 0x80) {
+					length++;
+				} else if (c < 0x800) {
+					length += 2;
+				} else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+						&& Character.isLowSurrogate(s.charAt(i + 1))) {
+					length += 4;
+					i++;
+				} else if (Character.isSurrogate(c)) {
+					length++;
+				} else {
+					length += 3;
+				}
+			}
+			writeVarint(length);
+			ensureCapacity(count + length);
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c < 0x80) {
+					bytes[count++] = (byte) c;
+				} else if (c < 0x800) {
+					bytes[count++] = (byte) (0xC0 | c >> 6);
+					bytes[count++] = (byte) (0x80 | c & 0x3F);
+				} else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+						&& Character.isLowSurrogate(s.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, s.charAt(++i));
+					bytes[count++] = (byte) (0xF0 | codePoint >> 18);
+					bytes[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+					bytes[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+					bytes[count++] = (byte) (0x80 | codePoint & 0x3F);
+				} else if (Character.isSurrogate(c)) {
+					// unpaired surrogates are replaced, like String#getBytes
+					bytes[count++] = '?';
+				} else {
+					bytes[count++] = (byte) (0xE0 | c >> 12);
+					bytes[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+					bytes[count++] = (byte) (0x80 | c & 0x3F);
+				}
+			}
+		}
+		
+		private void ensureCapacity(int capacity) {
+			if (capacity > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length << 1));
+			}
+		}
+	}
+	
+	/**
+	 * Cursor over the layout part of a decoded token.
+	 */
+	private static class Input {
+		
+		private final byte[] bytes;
+		
+		private final int limit;
+		
+		private final String token;
+		
+		private int position;
+		
+		
+		Input(byte[] bytes, int limit, String token) {
+			this.bytes = bytes;
+			this.limit = limit;
+			this.token = token;
+		}
+		
+		int read() {
+			if (position >= limit) {
+				throw invalid();
+			}
+			return bytes[position++];
+		}
+		
+		long readVarint() {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = read();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw invalid();
+		}
+		
+		int skip(int length) {
+			if (length < 0 || length > limit - position) {
+				throw invalid();
+			}
+			int start = position;
+			position += length;
+			return start;
+		}
+		
+		IllegalArgumentException invalid() {
+			return new IllegalArgumentException("Invalid paginationToken: " + token);
+		}
+	}
+}
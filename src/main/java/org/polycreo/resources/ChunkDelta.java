@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Value object for the difference between two versions of chunk content.
+ *
+ * @param <T> the type of elements
+ * @param <K> the type of element keys
+ */
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor(access = AccessLevel.PACKAGE)
+public class ChunkDelta<T, K> {
+	
+	/** elements which are not in the previous version */
+	@JsonProperty("added")
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<T> added = Collections.emptyList();
+	
+	/** elements which are in the previous version, but not equal to it */
+	@JsonProperty("changed")
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<T> changed = Collections.emptyList();
+	
+	/** keys of elements which are not in the current version */
+	@JsonProperty("removed")
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<K> removed = Collections.emptyList();
+	
+	
+	/**
+	 * Creates a {@link ChunkDelta} instance.
+	 *
+	 * @param added must not be {@code null}.
+	 * @param changed must not be {@code null}.
+	 * @param removed must not be {@code null}.
+	 */
+	public ChunkDelta(List<T> added, List<T> changed, List<K> removed) {
+		if (added == null) {
+			throw new IllegalArgumentException("The added must not be null");
+		}
+		if (changed == null) {
+			throw new IllegalArgumentException("The changed must not be null");
+		}
+		if (removed == null) {
+			throw new IllegalArgumentException("The removed must not be null");
+		}
+		this.added = added;
+		this.changed = changed;
+		this.removed = removed;
+	}
+	
+	/**
+	 * Computes the difference between two versions of chunk content.
+	 *
+	 * @param previous the previous version of the content
+	 * @param current the current version of the content
+	 * @param keyFunction function which extracts the key of an element
+	 * @param <T> the type of elements
+	 * @param <K> the type of element keys
+	 * @return the difference
+	 */
+	public static <T, K> ChunkDelta<T, K> between(Collection<T> previous, Collection<T> current,
+			Function<T, K> keyFunction) {
+		Map<K, T> previousElements = new LinkedHashMap<>();
+		previous.forEach(element -> previousElements.put(keyFunction.apply(element), element));
+		List<T> added = new ArrayList<>();
+		List<T> changed = new ArrayList<>();
+		for (T element : current) {
+			K key = keyFunction.apply(element);
+			if (previousElements.containsKey(key) == false) {
+				added.add(element);
+			} else if (Objects.equals(previousElements.remove(key), element) == false) {
+				changed.add(element);
+			}
+		}
+		return new ChunkDelta<>(added, changed, new ArrayList<>(previousElements.keySet()));
+	}
+	
+	@JsonIgnore
+	public List<T> getAdded() {
+		return added == null ? Collections.emptyList() : added;
+	}
+	
+	@JsonIgnore
+	public List<T> getChanged() {
+		return changed == null ? Collections.emptyList() : changed;
+	}
+	
+	@JsonIgnore
+	public List<K> getRemoved() {
+		return removed == null ? Collections.emptyList() : removed;
+	}
+	
+	/**
+	 * Returns whether the versions are same.
+	 *
+	 * @return {@code true} if nothing is added, changed nor removed
+	 */
+	@JsonIgnore
+	public boolean isEmpty() {
+		return getAdded().isEmpty() && getChanged().isEmpty() && getRemoved().isEmpty();
+	}
+	
+	/**
+	 * Applies this difference to the cached previous version of chunk content.
+	 *
+	 * <p>Retained elements keep their order, and added elements are appended.</p>
+	 *
+	 * @param cached the previous version of the content
+	 * @param keyFunction function which extracts the key of an element
+	 * @return the current version of the content
+	 */
+	public List<T> applyTo(Collection<T> cached, Function<T, K> keyFunction) {
+		Set<K> removedKeys = new HashSet<>(getRemoved());
+		Map<K, T> changedElements = new LinkedHashMap<>();
+		getChanged().forEach(element -> changedElements.put(keyFunction.apply(element), element));
+		List<T> result = new ArrayList<>(cached.size() + getAdded().size());
+		for (T element : cached) {
+			K key = keyFunction.apply(element);
+			if (removedKeys.contains(key) == false) {
+				T changedElement = changedElements.remove(key);
+				result.add(changedElement != null ? changedElement : element);
+			}
+		}
+		result.addAll(changedElements.values());
+		result.addAll(getAdded());
+		return result;
+	}
+}
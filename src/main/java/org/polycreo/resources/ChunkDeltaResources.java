@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import org.polycreo.resources.ChunkedResources.ChunkMetadata;
+
+/**
+ * {@link Resource} for the {@link ChunkDelta} of a chunk since the watermark which the client sent.
+ *
+ * <p>The {@link ChunkMetadata#getWatermark() watermark} of the metadata is the version after applying the delta,
+ * and {@link ChunkMetadata#getSize() size} is the number of elements after applying the delta.</p>
+ *
+ * @param <T> the type of elements
+ * @param <K> the type of element keys
+ */
+@ToString
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor(access = AccessLevel.PACKAGE)
+public class ChunkDeltaResources<T, K> extends Resource<ChunkMetadata> {
+	
+	private ChunkDelta<T, K> delta;
+	
+	
+	/**
+	 * Creates a {@link ChunkDeltaResources} instance.
+	 *
+	 * @param delta must not be {@code null}.
+	 * @param metadata must not be {@code null}.
+	 */
+	public ChunkDeltaResources(ChunkDelta<T, K> delta, ChunkMetadata metadata) {
+		super(metadata);
+		if (delta == null) {
+			throw new IllegalArgumentException("The delta must not be null");
+		}
+		if (metadata == null) {
+			throw new IllegalArgumentException("The metadata must not be null");
+		}
+		this.delta = delta;
+	}
+	
+	@Override
+	@JsonProperty("chunk")
+	@JsonUnwrapped(enabled = false)
+	public ChunkMetadata getValue() {
+		return super.getValue();
+	}
+	
+	/**
+	 * Returns the difference of the chunk content.
+	 *
+	 * @return the difference
+	 */
+	@JsonProperty("_delta")
+	public ChunkDelta<T, K> getDelta() {
+		return delta;
+	}
+	
+	@Override
+	public Resource<ChunkMetadata> embedResource(String relationship, Object resource) {
+		throw new UnsupportedOperationException();
+	}
+}
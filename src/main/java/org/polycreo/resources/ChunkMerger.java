@@ -0,0 +1,277 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.polycreo.chunks.Chunk;
+import org.polycreo.resources.ChunkedResources.ChunkMetadata;
+
+/**
+ * Merges chunks of sorted sources, such as shards of a store, into one {@link ChunkedResources}.
+ *
+ * <pre>
+ * ChunkMerger&lt;User&gt; merger = new ChunkMerger&lt;&gt;(
+ *     Arrays.asList(shard0::findUsers, shard1::findUsers),
+ *     Comparator.comparing(User::getName), User::getName, executor);
+ * ChunkedResources&lt;User&gt; resources = merger.merge("users", paginationToken, 20);
+ * </pre>
+ *
+ * <p>Each source returns elements after the given position in the order of the comparator, and no pagination
+ * token in the chunk which contains its last element. A source may return fewer elements than requested. All
+ * sources are fetched concurrently, and merged up to the requested size, or until all elements fetched from a
+ * source which has more are taken, since its next elements may precede the rest. The pagination token of the
+ * result encodes the position of each source, which is the position of the last element taken from it, so the
+ * next merge resumes every source exactly. The token is {@code null} when all sources are exhausted.</p>
+ *
+ * @param <T> the type of the elements
+ */
+public class ChunkMerger<T> {
+	
+	private static final byte ACTIVE = 0;
+	
+	private static final byte POSITIONED = 1;
+	
+	private static final byte EXHAUSTED = 2;
+	
+	private final List<ChunkSource<T>> sources;
+	
+	private final Comparator<? super T> comparator;
+	
+	private final Function<? super T, String> positionFunction;
+	
+	private final Executor executor;
+	
+	
+	/**
+	 * Creates a {@link ChunkMerger} instance.
+	 *
+	 * @param sources the sources to merge, must not be empty
+	 * @param comparator the order of the elements in each source, must not be {@code null}
+	 * @param positionFunction the function to get the position of an element, must not be {@code null}
+	 * @param executor the executor to fetch sources on, must not be {@code null}
+	 */
+	public ChunkMerger(List<ChunkSource<T>> sources, Comparator<? super T> comparator,
+			Function<? super T, String> positionFunction, Executor executor) {
+		if (sources == null || sources.isEmpty()) {
+			throw new IllegalArgumentException("The sources must not be empty");
+		}
+		if (comparator == null) {
+			throw new IllegalArgumentException("The comparator must not be null");
+		}
+		if (positionFunction == null) {
+			throw new IllegalArgumentException("The positionFunction must not be null");
+		}
+		if (executor == null) {
+			throw new IllegalArgumentException("The executor must not be null");
+		}
+		this.sources = new ArrayList<>(sources);
+		this.comparator = comparator;
+		this.positionFunction = positionFunction;
+		this.executor = executor;
+	}
+	
+	/**
+	 * Fetches all sources after the positions of the pagination token, and merges them.
+	 *
+	 * @param key the key of the embedded collection
+	 * @param paginationToken the pagination token of the previous merge, or {@code null} for the first chunk
+	 * @param size the maximum number of elements
+	 * @return the merged resources
+	 * @throws IllegalArgumentException if the pagination token is invalid
+	 * @throws CompletionException if a source fails
+	 */
+	public ChunkedResources<T> merge(String key, String paginationToken, int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("The size must be positive");
+		}
+		String[] positions = new String[sources.size()];
+		boolean[] exhausted = new boolean[sources.size()];
+		if (paginationToken != null) {
+			decode(paginationToken, positions, exhausted);
+		}
+		
+		List<CompletableFuture<Chunk<T>>> futures = new ArrayList<>(sources.size());
+		for (int i = 0; i < sources.size(); i++) {
+			ChunkSource<T> source = sources.get(i);
+			String position = positions[i];
+			futures.add(exhausted[i] ? CompletableFuture.completedFuture(null)
+					: CompletableFuture.supplyAsync(() -> source.fetch(position, size), executor));
+		}
+		
+		PriorityQueue<Cursor<T>> heap = new PriorityQueue<>(sources.size(), Comparator
+			.<Cursor<T>, T> comparing(Cursor::head, comparator)
+			.thenComparingInt(Cursor::getSource));
+		List<Cursor<T>> cursors = new ArrayList<>(sources.size());
+		for (int i = 0; i < sources.size(); i++) {
+			Chunk<T> chunk = futures.get(i).join();
+			List<T> content = chunk == null ? Collections.emptyList() : chunk.getContent();
+			boolean last = chunk == null || chunk.getPaginationToken() == null;
+			Cursor<T> cursor = new Cursor<>(i, content, last);
+			cursors.add(cursor);
+			if (cursor.hasNext()) {
+				heap.add(cursor);
+			}
+		}
+		
+		// elements not yet fetched from a starved source may precede the heads of the other sources
+		boolean starved = cursors.stream().anyMatch(Cursor::isStarved);
+		List<T> merged = new ArrayList<>(size);
+		while (starved == false && merged.size() < size && heap.isEmpty() == false) {
+			Cursor<T> cursor = heap.poll();
+			T element = cursor.next();
+			merged.add(element);
+			positions[cursor.getSource()] = positionFunction.apply(element);
+			if (cursor.hasNext()) {
+				heap.add(cursor);
+			} else {
+				starved = cursor.isStarved();
+			}
+		}
+		
+		for (Cursor<T> cursor : cursors) {
+			int i = cursor.getSource();
+			// a source is exhausted when all elements of its last chunk are taken
+			exhausted[i] = exhausted[i] || (cursor.last && cursor.hasNext() == false);
+		}
+		return new ChunkedResources<>(key, merged, new ChunkMetadata(merged.size(), encode(positions, exhausted)));
+	}
+	
+	private static String encode(String[] positions, boolean[] exhausted) {
+		boolean allExhausted = true;
+		for (boolean e : exhausted) {
+			allExhausted &= e;
+		}
+		if (allExhausted) {
+			return null;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeShort(positions.length);
+			for (int i = 0; i < positions.length; i++) {
+				if (exhausted[i]) {
+					out.writeByte(EXHAUSTED);
+				} else if (positions[i] == null) {
+					out.writeByte(ACTIVE);
+				} else {
+					out.writeByte(POSITIONED);
+					out.writeUTF(positions[i]);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+	}
+	
+	private static void decode(String paginationToken, String[] positions, boolean[] exhausted) {
+		try (DataInputStream in = new DataInputStream(
+				new ByteArrayInputStream(Base64.getUrlDecoder().decode(paginationToken)))) {
+			if (in.readUnsignedShort() != positions.length) {
+				throw new IllegalArgumentException("The paginationToken is not for " + positions.length + " sources");
+			}
+			for (int i = 0; i < positions.length; i++) {
+				byte state = in.readByte();
+				if (state == EXHAUSTED) {
+					exhausted[i] = true;
+				} else if (state == POSITIONED) {
+					positions[i] = in.readUTF();
+				} else if (state != ACTIVE) {
+					throw new IllegalArgumentException("Invalid paginationToken: " + paginationToken);
+				}
+			}
+			if (in.available() > 0) {
+				throw new IllegalArgumentException("Invalid paginationToken: " + paginationToken);
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid paginationToken: " + paginationToken, e);
+		}
+	}
+	
+	
+	/**
+	 * Source of chunks sorted by the comparator of the {@link ChunkMerger}.
+	 *
+	 * @param <T> the type of the elements
+	 */
+	@FunctionalInterface
+	public interface ChunkSource<T> {
+		
+		/**
+		 * Fetches elements after the position.
+		 *
+		 * @param position the position of the last element taken, or {@code null} to fetch from the first
+		 * @param size the maximum number of elements
+		 * @return the chunk of the elements, whose pagination token is {@code null} if no elements follow it
+		 */
+		Chunk<T> fetch(String position, int size);
+	}
+	
+	private static class Cursor<T> {
+		
+		private final int source;
+		
+		private final List<T> content;
+		
+		/** whether no elements follow the content in the source */
+		private final boolean last;
+		
+		private int index;
+		
+		
+		Cursor(int source, List<T> content, boolean last) {
+			this.source = source;
+			this.content = content;
+			this.last = last;
+		}
+		
+		int getSource() {
+			return source;
+		}
+		
+		boolean hasNext() {
+			return index < content.size();
+		}
+		
+		T head() {
+			return content.get(index);
+		}
+		
+		T next() {
+			return content.get(index++);
+		}
+		
+		/** whether all elements of the content are taken while the source has more */
+		boolean isStarved() {
+			return last == false && hasNext() == false;
+		}
+	}
+}
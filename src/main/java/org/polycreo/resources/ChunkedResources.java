@@ -71,6 +71,20 @@ public class ChunkedResources<T>extends Resource<ChunkMetadata> {
 		this(key, chunk.getContent(), new ChunkMetadata(chunk));
 	}
 	
+	/**
+	 * Creates a {@link ChunkedResources} instance with {@link Chunk}, and the pagination token encoded by the
+	 * codec from the keys of the first and the last elements.
+	 *
+	 * @param key must not be {@code null}.
+	 * @param chunk The {@link Chunk}
+	 * @param keyFunction function which returns the pagination key of an element
+	 * @param codec the codec to encode the pagination token
+	 */
+	public ChunkedResources(String key, Chunk<T> chunk, Function<? super T, ?> keyFunction,
+			PaginationTokenCodec codec) {
+		this(key, chunk.getContent(), new ChunkMetadata(chunk.getContent().size(), encode(chunk, keyFunction, codec)));
+	}
+	
 	/**
 	 * Creates a {@link ChunkedResources} instance with embeddedResources collection.
 	 *
@@ -123,6 +137,15 @@ public class ChunkedResources<T>extends Resource<ChunkMetadata> {
 		throw new UnsupportedOperationException();
 	}
 	
+	private static <T> String encode(Chunk<T> chunk, Function<? super T, ?> keyFunction, PaginationTokenCodec codec) {
+		if (chunk.getContent().isEmpty()) {
+			return null;
+		}
+		T first = chunk.getContent().get(0);
+		T last = chunk.getContent().get(chunk.getContent().size() - 1);
+		return codec.encode(new PaginationKeys(keyFunction.apply(first), keyFunction.apply(last)));
+	}
+	
 	
 	/**
 	 * Value object for pagination metadata.
@@ -142,9 +165,23 @@ public class ChunkedResources<T>extends Resource<ChunkMetadata> {
 		@Getter(onMethod = @__(@JsonIgnore))
 		private String paginationToken;
 		
+		/** the version of the chunk content, which clients send back to request a {@link ChunkDelta} */
+		@JsonProperty("watermark")
+		@JsonInclude(JsonInclude.Include.NON_NULL)
+		@Getter(onMethod = @__(@JsonIgnore))
+		private String watermark;
+		
+		
+		public ChunkMetadata(long size, String paginationToken) {
+			this(size, paginationToken, null);
+		}
 		
 		public ChunkMetadata(Chunk<?> chunk) {
 			this(chunk.getContent().size(), chunk.getPaginationToken());
 		}
+		
+		public ChunkMetadata(Chunk<?> chunk, String watermark) {
+			this(chunk.getContent().size(), chunk.getPaginationToken(), watermark);
+		}
 	}
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * {@link Resource} whose repeated embedded objects are written once into the {@code _shared} section.
+ *
+ * @see EmbeddedDeduplicator
+ */
+@ToString
+@JsonSerialize(using = DeduplicatedResource.Serializer.class)
+public final class DeduplicatedResource {
+	
+	@Getter
+	private final Resource<?> resource;
+	
+	private final EmbeddedReferences references;
+	
+	
+	DeduplicatedResource(Resource<?> resource, EmbeddedReferences references) {
+		this.resource = resource;
+		this.references = references;
+	}
+	
+	/**
+	 * Returns the objects written into the {@code _shared} section.
+	 *
+	 * @return id to embedded object map
+	 */
+	public Map<String, Object> getShared() {
+		return references.getShared();
+	}
+	
+	
+	/**
+	 * Serializer which writes the resource unwrapped, followed by the {@code _shared} section.
+	 */
+	@SuppressWarnings("serial")
+	static class Serializer extends StdSerializer<DeduplicatedResource> {
+		
+		Serializer() {
+			super(DeduplicatedResource.class);
+		}
+		
+		@Override
+		public void serialize(DeduplicatedResource value, JsonGenerator gen, SerializerProvider provider)
+				throws IOException {
+			provider.setAttribute(EmbeddedReferences.class, value.references);
+			JsonSerializer<Object> resourceSerializer =
+					provider.findValueSerializer(value.resource.getClass()).unwrappingSerializer(null);
+			gen.writeStartObject();
+			resourceSerializer.serialize(value.resource, gen, provider);
+			if (value.getShared().isEmpty() == false) {
+				gen.writeObjectFieldStart(EmbeddedReferences.SHARED);
+				for (Map.Entry<String, Object> entry : value.getShared().entrySet()) {
+					gen.writeFieldName(entry.getKey());
+					provider.defaultSerializeValue(entry.getValue(), gen);
+				}
+				gen.writeEndObject();
+			}
+			gen.writeEndObject();
+		}
+	}
+}
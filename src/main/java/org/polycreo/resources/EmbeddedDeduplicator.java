@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Detects objects which are embedded more than once in a resource graph.
+ *
+ * <p>Serializing {@link #deduplicate(Resource)} writes each repeated embedded object once into the top-level
+ * {@code _shared} section, and writes its occurrences in {@code _embedded} as {@code {"_ref": "id"}}.
+ * Clients rebuild the graph with {@link #resolve(JsonNode)} before binding.</p>
+ *
+ * <pre>
+ * String json = objectMapper.writeValueAsString(new EmbeddedDeduplicator().deduplicate(pagedResources));
+ * PagedResources&lt;Post&gt; posts = objectMapper.readerFor(type)
+ *     .readValue(EmbeddedDeduplicator.resolve(objectMapper.readTree(json)));
+ * </pre>
+ */
+public class EmbeddedDeduplicator {
+	
+	private final Function<Object, ?> keyFunction;
+	
+	
+	/**
+	 * Creates a {@link EmbeddedDeduplicator} instance which detects repeated objects by identity.
+	 */
+	public EmbeddedDeduplicator() {
+		this.keyFunction = null;
+	}
+	
+	/**
+	 * Creates a {@link EmbeddedDeduplicator} instance which detects repeated objects by the key.
+	 *
+	 * @param keyFunction function which returns the key of an embedded object, or {@code null} to not deduplicate it
+	 */
+	public EmbeddedDeduplicator(Function<Object, ?> keyFunction) {
+		if (keyFunction == null) {
+			throw new IllegalArgumentException("The keyFunction must not be null");
+		}
+		this.keyFunction = keyFunction;
+	}
+	
+	/**
+	 * Returns the serializable resource whose repeated embedded objects are written as references.
+	 *
+	 * @param resource the root resource
+	 * @return the resource to serialize
+	 */
+	public DeduplicatedResource deduplicate(Resource<?> resource) {
+		if (resource == null) {
+			throw new IllegalArgumentException("The resource must not be null");
+		}
+		Map<Object, Integer> counts = newKeyMap();
+		List<Object> visited = new ArrayList<>();
+		countEmbedded(resource, counts, visited);
+		
+		EmbeddedReferences references = new EmbeddedReferences(this, newKeyMap());
+		for (Object embedded : visited) {
+			if (counts.get(keyOf(embedded)) > 1) {
+				references.add(embedded);
+			}
+		}
+		return new DeduplicatedResource(resource, references);
+	}
+	
+	/**
+	 * Replaces references with the objects in the {@code _shared} section, and removes the section.
+	 *
+	 * <p>Occurrences of a shared object become the same {@link JsonNode} instance.</p>
+	 *
+	 * @param document the deduplicated document
+	 * @return the document
+	 */
+	public static JsonNode resolve(JsonNode document) {
+		if (document instanceof ObjectNode && document.has(EmbeddedReferences.SHARED)) {
+			JsonNode shared = ((ObjectNode) document).remove(EmbeddedReferences.SHARED);
+			Map<String, JsonNode> resolved = new HashMap<>();
+			Set<String> resolving = new HashSet<>();
+			return resolveNode(document, shared, resolved, resolving);
+		}
+		return document;
+	}
+	
+	Object keyOf(Object embedded) {
+		return keyFunction == null ? embedded : keyFunction.apply(embedded);
+	}
+	
+	private <V> Map<Object, V> newKeyMap() {
+		return keyFunction == null ? new IdentityHashMap<>() : new HashMap<>();
+	}
+	
+	private void countEmbedded(Resource<?> resource, Map<Object, Integer> counts, List<Object> visited) {
+		for (Object embedded : resource.getEmbeddedResources().values()) {
+			if (embedded instanceof Collection) {
+				for (Object element : (Collection<?>) embedded) {
+					count(element, counts, visited);
+				}
+			} else {
+				count(embedded, counts, visited);
+			}
+		}
+	}
+	
+	private void count(Object embedded, Map<Object, Integer> counts, List<Object> visited) {
+		if (embedded == null || isScalar(embedded)) {
+			return;
+		}
+		Object key = keyOf(embedded);
+		if (key != null) {
+			Integer count = counts.get(key);
+			counts.put(key, count == null ? 1 : count + 1);
+			if (count != null) {
+				return;
+			}
+			visited.add(embedded);
+		}
+		if (embedded instanceof Resource && ((Resource<?>) embedded).getEmbeddedResources() != null) {
+			countEmbedded((Resource<?>) embedded, counts, visited);
+		}
+	}
+	
+	/**
+	 * Returns whether the object is written as a scalar, whose reference is not shorter than itself. Such values
+	 * are often the same instance from JDK caches, such as {@link Boolean#TRUE} and small {@link Integer}s.
+	 */
+	private static boolean isScalar(Object embedded) {
+		return embedded instanceof CharSequence
+				|| embedded instanceof Number
+				|| embedded instanceof Boolean
+				|| embedded instanceof Character
+				|| embedded instanceof Enum
+				|| embedded instanceof UUID
+				|| embedded instanceof Date
+				|| embedded instanceof TemporalAccessor;
+	}
+	
+	private static JsonNode resolveNode(JsonNode node, JsonNode shared, Map<String, JsonNode> resolved,
+			Set<String> resolving) {
+		if (node.size() == 1 && node.has(EmbeddedReferences.REF)) {
+			String id = node.get(EmbeddedReferences.REF).asText();
+			JsonNode target = shared.get(id);
+			if (target == null || resolving.contains(id)) {
+				return node; // unknown or cyclic reference
+			}
+			if (resolved.containsKey(id) == false) {
+				resolving.add(id);
+				resolved.put(id, resolveNode(target, shared, resolved, resolving));
+				resolving.remove(id);
+			}
+			return resolved.get(id);
+		}
+		if (node instanceof ObjectNode) {
+			ObjectNode objectNode = (ObjectNode) node;
+			Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+			List<Map.Entry<String, JsonNode>> entries = new ArrayList<>();
+			fields.forEachRemaining(entries::add);
+			for (Map.Entry<String, JsonNode> entry : entries) {
+				objectNode.set(entry.getKey(), resolveNode(entry.getValue(), shared, resolved, resolving));
+			}
+		} else if (node instanceof ArrayNode) {
+			ArrayNode arrayNode = (ArrayNode) node;
+			for (int i = 0; i < arrayNode.size(); i++) {
+				arrayNode.set(i, resolveNode(arrayNode.get(i), shared, resolved, resolving));
+			}
+		}
+		return node;
+	}
+}
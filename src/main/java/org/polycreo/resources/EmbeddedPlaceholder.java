@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import lombok.Getter;
+import lombok.AllArgsConstructor;
+
+/**
+ * Per-call serialization attribute, keyed by {@code EmbeddedPlaceholder.class}, which makes
+ * {@link EmbeddedResourcesSerializer} write a placeholder string instead of one embedded value.
+ */
+@Getter
+@AllArgsConstructor
+class EmbeddedPlaceholder {
+	
+	/**
+	 * the embedded value to replace, compared by identity.
+	 */
+	private final Object target;
+	
+	private final String placeholder;
+}
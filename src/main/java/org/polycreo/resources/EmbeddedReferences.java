@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Embedded objects which are written once into the shared section, and referred by id.
+ */
+class EmbeddedReferences {
+	
+	static final String REF = "_ref";
+	
+	static final String SHARED = "_shared";
+	
+	/** key of embedded object to id */
+	private final Map<Object, String> ids;
+	
+	/** id to embedded object */
+	private final Map<String, Object> shared = new LinkedHashMap<>();
+	
+	private final EmbeddedDeduplicator deduplicator;
+	
+	
+	EmbeddedReferences(EmbeddedDeduplicator deduplicator, Map<Object, String> ids) {
+		this.deduplicator = deduplicator;
+		this.ids = ids;
+	}
+	
+	void add(Object embedded) {
+		String id = Integer.toString(shared.size());
+		ids.put(deduplicator.keyOf(embedded), id);
+		shared.put(id, embedded);
+	}
+	
+	/**
+	 * Returns the id of the embedded object.
+	 *
+	 * @param embedded embedded object
+	 * @return the id, or {@code null} if the object is not shared
+	 */
+	String idOf(Object embedded) {
+		if (embedded == null || shared.isEmpty()) {
+			return null;
+		}
+		Object key = deduplicator.keyOf(embedded);
+		return key == null ? null : ids.get(key);
+	}
+	
+	Map<String, Object> getShared() {
+		return Collections.unmodifiableMap(shared);
+	}
+}
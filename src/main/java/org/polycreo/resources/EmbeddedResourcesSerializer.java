@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Serializer for HAL {@code _embedded}, which writes shared objects of {@link EmbeddedReferences} as references.
+ *
+ * <p>With an {@link EmbeddedPlaceholder}, its target is written as the placeholder string instead. Without
+ * either attribute, the map is written by the default map serializer.</p>
+ */
+@SuppressWarnings("serial")
+class EmbeddedResourcesSerializer extends StdSerializer<Map<String, ?>> implements ContextualSerializer {
+	
+	private final JsonSerializer<Object> mapSerializer;
+	
+	
+	EmbeddedResourcesSerializer() {
+		this(null);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private EmbeddedResourcesSerializer(JsonSerializer<Object> mapSerializer) {
+		super((Class<Map<String, ?>>) (Class<?>) Map.class);
+		this.mapSerializer = mapSerializer;
+	}
+	
+	@Override
+	public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+			throws JsonMappingException {
+		JavaType mapType = provider.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+		return new EmbeddedResourcesSerializer(provider.findValueSerializer(mapType, property));
+	}
+	
+	@Override
+	public boolean isEmpty(SerializerProvider provider, Map<String, ?> value) {
+		return value == null || value.isEmpty();
+	}
+	
+	@Override
+	public void serialize(Map<String, ?> embeddedResources, JsonGenerator gen, SerializerProvider provider)
+			throws IOException {
+		EmbeddedReferences references = (EmbeddedReferences) provider.getAttribute(EmbeddedReferences.class);
+		EmbeddedPlaceholder placeholder = (EmbeddedPlaceholder) provider.getAttribute(EmbeddedPlaceholder.class);
+		if (references == null && placeholder == null) {
+			mapSerializer.serialize(embeddedResources, gen, provider);
+			return;
+		}
+		gen.writeStartObject();
+		for (Map.Entry<String, ?> entry : embeddedResources.entrySet()) {
+			gen.writeFieldName(entry.getKey());
+			Object embedded = entry.getValue();
+			if (placeholder != null && embedded == placeholder.getTarget()) {
+				gen.writeString(placeholder.getPlaceholder());
+			} else if (embedded instanceof Collection) {
+				gen.writeStartArray();
+				for (Object element : (Collection<?>) embedded) {
+					writeEmbedded(element, references, gen, provider);
+				}
+				gen.writeEndArray();
+			} else {
+				writeEmbedded(embedded, references, gen, provider);
+			}
+		}
+		gen.writeEndObject();
+	}
+	
+	private static void writeEmbedded(Object embedded, EmbeddedReferences references, JsonGenerator gen,
+			SerializerProvider provider) throws IOException {
+		String id = references == null ? null : references.idOf(embedded);
+		if (id == null) {
+			provider.defaultSerializeValue(embedded, gen);
+		} else {
+			gen.writeStartObject();
+			gen.writeStringField(EmbeddedReferences.REF, id);
+			gen.writeEndObject();
+		}
+	}
+}
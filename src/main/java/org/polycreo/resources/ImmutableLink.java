@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Immutable {@link Link} which can be shared between resources.
+ *
+ * <p>The JSON form of the link is encoded once, and written as is on serialization.</p>
+ */
+@SuppressWarnings("serial")
+public final class ImmutableLink extends Link {
+	
+	private final SerializedString serialized;
+	
+	
+	/**
+	 * Creates an {@link ImmutableLink} instance.
+	 *
+	 * @param href the href, must not be {@code null}
+	 * @throws IllegalArgumentException if the href is {@code null}
+	 */
+	public ImmutableLink(String href) {
+		this(href, false);
+	}
+	
+	/**
+	 * Creates an {@link ImmutableLink} instance.
+	 *
+	 * @param href the href, must not be {@code null}
+	 * @param templated whether the href is a URI template
+	 * @throws IllegalArgumentException if the href is {@code null}
+	 */
+	public ImmutableLink(String href, boolean templated) {
+		super(href, templated);
+		if (href == null) {
+			throw new IllegalArgumentException("The href must not be null");
+		}
+		this.serialized = new SerializedString(
+				"{\"href\":\"" + new String(JsonStringEncoder.getInstance().quoteAsString(href)) + "\"}");
+	}
+	
+	@Override
+	public void setHref(String href) {
+		throw new UnsupportedOperationException();
+	}
+	
+	@Override
+	public void setTemplated(boolean templated) {
+		throw new UnsupportedOperationException();
+	}
+	
+	@Override
+	public boolean equals(Object obj) { // NOPMD UselessOverridingMethod - serialized form is derived from href
+		return super.equals(obj);
+	}
+	
+	@Override
+	public int hashCode() { // NOPMD UselessOverridingMethod - serialized form is derived from href
+		return super.hashCode();
+	}
+	
+	/**
+	 * Returns the pre-encoded JSON form of this link.
+	 *
+	 * @return JSON object of this link
+	 */
+	SerializableString getSerialized() {
+		return serialized;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Unmodifiable list which binds each element from its bytes on first access.
+ *
+ * <p>Element {@code i} spans {@code content[offsets[2 * i]]} to {@code content[offsets[2 * i + 1]]}, exclusive.
+ * The content is released once all elements are bound. Not thread safe.</p>
+ *
+ * @param <T> the type of the elements
+ */
+final class LazyElementList<T> extends AbstractList<T> implements RandomAccess {
+	
+	private static final Object UNBOUND = new Object();
+	
+	private final ObjectReader elementReader;
+	
+	private final int[] offsets;
+	
+	private final Object[] elements;
+	
+	private byte[] content;
+	
+	private int unbound;
+	
+	
+	LazyElementList(ObjectReader elementReader, byte[] content, int[] offsets, int size) {
+		this.elementReader = elementReader;
+		this.content = content;
+		this.offsets = offsets;
+		this.elements = new Object[size];
+		this.unbound = size;
+		Arrays.fill(elements, UNBOUND);
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		Object element = elements[index];
+		if (element == UNBOUND) {
+			int start = offsets[index << 1];
+			int end = offsets[(index << 1) + 1];
+			try {
+				element = elementReader.readValue(content, start, end - start);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to bind element " + index, e);
+			}
+			elements[index] = element;
+			if (--unbound == 0) {
+				content = null;
+			}
+		}
+		return (T) element;
+	}
+	
+	@Override
+	public int size() {
+		return elements.length;
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.polycreo.resources.ChunkedResources.ChunkMetadata;
+import org.polycreo.resources.PagedResources.PageMetadata;
+
+/**
+ * Reads {@link PagedResources} and {@link ChunkedResources} binding {@code _embedded} elements lazily.
+ *
+ * <p>The metadata and {@code _links} are bound eagerly. For the {@code _embedded} collection, only the byte
+ * offsets of elements are indexed, and each element is bound on first access from the retained content. This
+ * saves CPU and heap when only a few elements of a large response are used.</p>
+ *
+ * <pre>
+ * PagedResources&lt;User&gt; users = new LazyResourcesReader(objectMapper.reader())
+ *     .readPaged(bytes, new TypeReference&lt;User&gt;() {});
+ * </pre>
+ *
+ * <p>The embedded collection is unmodifiable and not thread safe. Elements which fail to bind throw
+ * {@link java.io.UncheckedIOException} on access.</p>
+ */
+public class LazyResourcesReader {
+	
+	private static final String PAGE = "page";
+	
+	private static final String CHUNK = "chunk";
+	
+	private static final String LINKS = "_links";
+	
+	private static final String EMBEDDED = "_embedded";
+	
+	private static final int INITIAL_ELEMENTS = 16;
+	
+	private final ObjectReader reader;
+	
+	
+	/**
+	 * Creates a {@link LazyResourcesReader} instance.
+	 *
+	 * @param reader the reader to bind with, must not be {@code null}. Its attributes, such as
+	 *            {@link LinkCompaction}, are applied to links and elements.
+	 */
+	public LazyResourcesReader(ObjectReader reader) {
+		if (reader == null) {
+			throw new IllegalArgumentException("The reader must not be null");
+		}
+		this.reader = reader;
+	}
+	
+	/**
+	 * Reads {@link PagedResources}.
+	 *
+	 * @param content the JSON content, which is retained until all elements are bound
+	 * @param elementType the type of the embedded elements
+	 * @param <T> the type of the embedded elements
+	 * @return the resources
+	 * @throws IOException if the content is not valid
+	 */
+	public <T> PagedResources<T> readPaged(byte[] content, JavaType elementType) throws IOException {
+		Parsed<T> parsed = parse(content, elementType, PAGE, PageMetadata.class);
+		PageMetadata metadata = (PageMetadata) parsed.metadata;
+		PagedResources<T> resources = parsed.key == null ? new PagedResources<>(metadata)
+				: new PagedResources<>(parsed.key, parsed.elements, metadata);
+		resources.getLinks().putAll(parsed.links);
+		return resources;
+	}
+	
+	/**
+	 * Reads {@link PagedResources}.
+	 *
+	 * @param content the JSON content, which is retained until all elements are bound
+	 * @param elementType the type of the embedded elements
+	 * @param <T> the type of the embedded elements
+	 * @return the resources
+	 * @throws IOException if the content is not valid
+	 */
+	public <T> PagedResources<T> readPaged(byte[] content, TypeReference<T> elementType) throws IOException {
+		return readPaged(content, reader.getTypeFactory().constructType(elementType));
+	}
+	
+	/**
+	 * Reads {@link ChunkedResources}.
+	 *
+	 * @param content the JSON content, which is retained until all elements are bound
+	 * @param elementType the type of the embedded elements
+	 * @param <T> the type of the embedded elements
+	 * @return the resources
+	 * @throws IOException if the content is not valid
+	 */
+	public <T> ChunkedResources<T> readChunked(byte[] content, JavaType elementType) throws IOException {
+		Parsed<T> parsed = parse(content, elementType, CHUNK, ChunkMetadata.class);
+		ChunkMetadata metadata = (ChunkMetadata) parsed.metadata;
+		ChunkedResources<T> resources = new ChunkedResources<>(parsed.key == null ? EMBEDDED : parsed.key,
+				parsed.elements, metadata);
+		resources.getLinks().putAll(parsed.links);
+		return resources;
+	}
+	
+	/**
+	 * Reads {@link ChunkedResources}.
+	 *
+	 * @param content the JSON content, which is retained until all elements are bound
+	 * @param elementType the type of the embedded elements
+	 * @param <T> the type of the embedded elements
+	 * @return the resources
+	 * @throws IOException if the content is not valid
+	 */
+	public <T> ChunkedResources<T> readChunked(byte[] content, TypeReference<T> elementType) throws IOException {
+		return readChunked(content, reader.getTypeFactory().constructType(elementType));
+	}
+	
+	private <T> Parsed<T> parse(byte[] content, JavaType elementType, String metadataName, Class<?> metadataType)
+			throws IOException {
+		Parsed<T> parsed = new Parsed<>();
+		try (JsonParser parser = reader.getFactory().createParser(content)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw JsonMappingException.from(parser, "Expected an object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				parser.nextToken();
+				if (metadataName.equals(name)) {
+					parsed.metadata = reader.forType(metadataType).readValue(parser);
+				} else if (LINKS.equals(name)) {
+					readLinks(parser, parsed);
+				} else if (EMBEDDED.equals(name) && parser.currentToken() == JsonToken.START_OBJECT) {
+					indexEmbedded(parser, parsed);
+				} else {
+					parser.skipChildren();
+				}
+			}
+			if (parsed.metadata == null) {
+				throw JsonMappingException.from(parser, "Missing " + metadataName);
+			}
+		}
+		if (parsed.key != null) {
+			// elements are read separately, but in scope of CURIEs declared in the root _links
+			ObjectReader elementReader = reader.forType(elementType);
+			if (parsed.curieTemplates.isEmpty() == false) {
+				elementReader = elementReader.withAttribute(LinksDeserializer.CURIE_TEMPLATES, parsed.curieTemplates);
+			}
+			parsed.elements = new LazyElementList<>(elementReader, content, parsed.offsets, parsed.size);
+		}
+		return parsed;
+	}
+	
+	/**
+	 * Reads {@code _links} through {@link Resource}, so that CURIEs and {@link LinkCompaction} are applied.
+	 */
+	private void readLinks(JsonParser parser, Parsed<?> parsed) throws IOException {
+		JsonNode links = reader.readTree(parser);
+		ObjectNode wrapper = JsonNodeFactory.instance.objectNode();
+		wrapper.set(LINKS, links);
+		JavaType resourceType = reader.getTypeFactory().constructParametricType(Resource.class, Void.class);
+		Resource<Void> resource = reader.forType(resourceType).readValue(wrapper);
+		parsed.links = resource.getLinks();
+		parsed.curieTemplates = LinksDeserializer.curieTemplatesOf(links.get(LinkCompaction.CURIES));
+	}
+	
+	/**
+	 * Indexes the byte offsets of the elements of the first array in {@code _embedded}.
+	 */
+	private static void indexEmbedded(JsonParser parser, Parsed<?> parsed) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = parser.getCurrentName();
+			if (parser.nextToken() != JsonToken.START_ARRAY || parsed.key != null) {
+				parser.skipChildren();
+				continue;
+			}
+			int[] offsets = new int[INITIAL_ELEMENTS << 1];
+			int size = 0;
+			JsonToken token;
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				if (token == null) {
+					throw JsonMappingException.from(parser, "Unexpected end of " + EMBEDDED);
+				}
+				if (offsets.length == size << 1) {
+					offsets = Arrays.copyOf(offsets, offsets.length << 1);
+				}
+				offsets[size << 1] = (int) parser.getTokenLocation().getByteOffset();
+				if (token.isStructStart()) {
+					parser.skipChildren();
+				} else {
+					parser.finishToken();
+				}
+				offsets[(size << 1) + 1] = (int) parser.getCurrentLocation().getByteOffset();
+				size++;
+			}
+			parsed.key = key;
+			parsed.offsets = offsets;
+			parsed.size = size;
+		}
+	}
+	
+	
+	private static class Parsed<T> {
+		
+		private String key;
+		
+		private int[] offsets;
+		
+		private int size;
+		
+		private List<T> elements = Collections.emptyList();
+		
+		private Object metadata;
+		
+		private Map<String, Link> links = Collections.emptyMap();
+		
+		private Map<String, String> curieTemplates = Collections.emptyMap();
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Compaction settings of HAL {@code _links}: hrefs relative to a declared base, and CURIEs for link relations.
+ *
+ * <p>Settings are passed to Jackson as an attribute keyed by {@code LinkCompaction.class}:</p>
+ * <pre>
+ * LinkCompaction compaction = new LinkCompaction()
+ *     .relativeTo("http://example.com/api/")
+ *     .curie("acme", "http://docs.acme.com/rels/");
+ * objectMapper.writer().withAttribute(LinkCompaction.class, compaction).writeValueAsString(resource);
+ * objectMapper.readerFor(type).withAttribute(LinkCompaction.class, compaction).readValue(json);
+ * </pre>
+ *
+ * <p>CURIEs are declared in the {@code _links} of the root resource, or of each element when the root is an
+ * array of resources, and are expanded on deserialization even without the attribute. Relative hrefs are
+ * expanded only when the attribute is given to the reader. Configure an instance before sharing it between
+ * threads.</p>
+ */
+@ToString
+@EqualsAndHashCode
+public class LinkCompaction {
+	
+	static final String CURIES = "curies";
+	
+	static final String REL_PLACEHOLDER = "{rel}";
+	
+	/**
+	 * the base URI which hrefs are written relative to, always ends with {@code /}.
+	 */
+	@Getter
+	private String base;
+	
+	private final Map<String, String> curies = new LinkedHashMap<>();
+	
+	
+	/**
+	 * Writes hrefs which start with the given base relative to it.
+	 *
+	 * @param base the base URI. {@code /} is appended if it does not end with {@code /}.
+	 * @return this
+	 */
+	public LinkCompaction relativeTo(String base) {
+		if (base == null) {
+			throw new IllegalArgumentException("The base must not be null");
+		}
+		this.base = base.endsWith("/") ? base : base + "/";
+		return this;
+	}
+	
+	/**
+	 * Declares a CURIE. Relations which start with the given namespace are written as {@code name:rest}.
+	 *
+	 * @param name the CURIE name
+	 * @param namespace the relation namespace, such as {@code http://docs.example.com/rels/}
+	 * @return this
+	 */
+	public LinkCompaction curie(String name, String namespace) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("The name must not be empty");
+		}
+		if (namespace == null || namespace.isEmpty()) {
+			throw new IllegalArgumentException("The namespace must not be empty");
+		}
+		curies.put(name, namespace);
+		return this;
+	}
+	
+	/**
+	 * Returns declared CURIEs.
+	 *
+	 * @return CURIE name to relation namespace map
+	 */
+	public Map<String, String> getCuries() {
+		return Collections.unmodifiableMap(curies);
+	}
+	
+	/**
+	 * Returns the compact form of the relation.
+	 *
+	 * @param rel relation
+	 * @return {@code name:rest} if the relation is in a declared namespace, otherwise the relation as is
+	 */
+	public String compactRel(String rel) {
+		if (rel == null) {
+			return null;
+		}
+		for (Map.Entry<String, String> curie : curies.entrySet()) {
+			String namespace = curie.getValue();
+			if (rel.length() > namespace.length() && rel.startsWith(namespace)) {
+				return curie.getKey() + ':' + rel.substring(namespace.length());
+			}
+		}
+		return rel;
+	}
+	
+	/**
+	 * Returns the href relative to the base.
+	 *
+	 * @param href href
+	 * @return relative href, or the href as is if it does not start with the base
+	 */
+	public String compactHref(String href) {
+		if (base == null || href == null || href.startsWith(base) == false) {
+			return href;
+		}
+		String relative = href.substring(base.length());
+		if (relative.startsWith("/") || hasScheme(relative)) {
+			return href;
+		}
+		return relative;
+	}
+	
+	/**
+	 * Returns the href resolved against the base.
+	 *
+	 * @param href href
+	 * @return absolute href, or the href as is if it is not relative
+	 */
+	public String expandHref(String href) {
+		if (base == null || href == null || href.startsWith("/") || hasScheme(href)) {
+			return href;
+		}
+		return base + href;
+	}
+	
+	/**
+	 * Returns the relation expanded with the given CURIEs.
+	 *
+	 * @param rel relation
+	 * @param curieTemplates CURIE name to href template map
+	 * @return expanded relation, or the relation as is if it is not a known CURIE
+	 */
+	static String expandRel(String rel, Map<String, String> curieTemplates) {
+		int colon = rel.indexOf(':');
+		if (colon <= 0 || curieTemplates == null) {
+			return rel;
+		}
+		String template = curieTemplates.get(rel.substring(0, colon));
+		if (template == null) {
+			return rel;
+		}
+		return template.replace(REL_PLACEHOLDER, rel.substring(colon + 1));
+	}
+	
+	/**
+	 * Returns whether the URI reference starts with a scheme, as defined in RFC 3986.
+	 */
+	private static boolean hasScheme(String uri) {
+		for (int i = 0; i < uri.length(); i++) {
+			char c = uri.charAt(i);
+			if (c == ':') {
+				return i > 0;
+			}
+			boolean alpha = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+			boolean digitOrSign = (c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.';
+			boolean schemeChar = alpha || (i > 0 && digitOrSign);
+			if (schemeChar == false) {
+				return false;
+			}
+		}
+		return false;
+	}
+}
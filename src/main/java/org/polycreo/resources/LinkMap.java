@@ -0,0 +1,245 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Relation-link map which stores links of {@link LinkRelations registered relations} in array slots.
+ *
+ * <p>A {@code null} link of a registered relation is treated as absent. Links which were put before their
+ * relation is registered stay in the map of other relations, until they are put or removed again.</p>
+ */
+final class LinkMap extends AbstractMap<String, Link> {
+	
+	private static final Link[] EMPTY_SLOTS = new Link[0];
+	
+	private Link[] slots = EMPTY_SLOTS;
+	
+	private int slotCount;
+	
+	private Map<String, Link> others;
+	
+	
+	@Override
+	public Link get(Object key) {
+		if (key instanceof String) {
+			int index = LinkRelations.indexOf((String) key);
+			if (index >= 0) {
+				return get(index);
+			}
+		}
+		return others == null ? null : others.get(key);
+	}
+	
+	/**
+	 * Returns the link of the relation index.
+	 *
+	 * @param index the index of the relation
+	 * @return the link or {@code null} if none found
+	 */
+	Link get(int index) {
+		Link link = index < slots.length ? slots[index] : null;
+		if (link == null && others != null && index < LinkRelations.size()) {
+			return others.get(LinkRelations.relOf(index));
+		}
+		return link;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		if (key instanceof String) {
+			int index = LinkRelations.indexOf((String) key);
+			if (index >= 0) {
+				return get(index) != null;
+			}
+		}
+		return others != null && others.containsKey(key);
+	}
+	
+	@Override
+	public Link put(String rel, Link link) {
+		int index = rel == null ? -1 : LinkRelations.indexOf(rel);
+		if (index >= 0) {
+			return put(index, link);
+		}
+		if (others == null) {
+			others = new HashMap<>();
+		}
+		return others.put(rel, link);
+	}
+	
+	/**
+	 * Puts the link of the relation index.
+	 *
+	 * @param index the index of the relation
+	 * @param link link
+	 * @return previous link
+	 */
+	Link put(int index, Link link) {
+		// the link may have been put before the relation was registered
+		Link stale = others == null || others.isEmpty() ? null : others.remove(LinkRelations.relOf(index));
+		if (index >= slots.length) {
+			if (link == null) {
+				return stale;
+			}
+			slots = Arrays.copyOf(slots, Math.max(index + 1, LinkRelations.size()));
+		}
+		Link previous = slots[index];
+		slots[index] = link;
+		if (previous == null && link != null) {
+			slotCount++;
+		} else if (previous != null && link == null) {
+			slotCount--;
+		}
+		return previous == null ? stale : previous;
+	}
+	
+	@Override
+	public Link remove(Object key) {
+		if (key instanceof String) {
+			int index = LinkRelations.indexOf((String) key);
+			if (index >= 0) {
+				return put(index, null);
+			}
+		}
+		return others == null ? null : others.remove(key);
+	}
+	
+	@Override
+	public void clear() {
+		Arrays.fill(slots, null);
+		slotCount = 0;
+		others = null;
+	}
+	
+	@Override
+	public int size() {
+		return slotCount + (others == null ? 0 : others.size());
+	}
+	
+	@Override
+	public Set<Entry<String, Link>> entrySet() {
+		return new AbstractSet<Entry<String, Link>>() {
+			
+			@Override
+			public Iterator<Entry<String, Link>> iterator() {
+				return new EntryIterator();
+			}
+			
+			@Override
+			public int size() {
+				return LinkMap.this.size();
+			}
+		};
+	}
+	
+	/**
+	 * Returns the number of slots, which may include empty ones.
+	 *
+	 * @return the number of slots
+	 */
+	int slotLength() {
+		return slots.length;
+	}
+	
+	/**
+	 * Returns the link in the slot of the relation index, which excludes a link put before the relation was
+	 * registered, since it is still one of {@link #others()}.
+	 *
+	 * @param index the index of the slot
+	 * @return the link or {@code null} if the slot is empty
+	 */
+	Link slot(int index) {
+		return slots[index];
+	}
+	
+	/**
+	 * Returns links of relations which are not registered.
+	 *
+	 * @return relation-link map
+	 */
+	Map<String, Link> others() {
+		return others == null ? Collections.emptyMap() : others;
+	}
+	
+	
+	private class EntryIterator implements Iterator<Entry<String, Link>> {
+		
+		private int nextSlot = -1;
+		
+		private int lastSlot = -1;
+		
+		private Iterator<Entry<String, Link>> othersIterator;
+		
+		
+		EntryIterator() {
+			advanceSlot();
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return nextSlot < slots.length || othersIterator().hasNext();
+		}
+		
+		@Override
+		public Entry<String, Link> next() {
+			if (nextSlot < slots.length) {
+				lastSlot = nextSlot;
+				advanceSlot();
+				return new SimpleImmutableEntry<>(LinkRelations.relOf(lastSlot), slots[lastSlot]);
+			}
+			lastSlot = -1;
+			if (othersIterator().hasNext() == false) {
+				throw new NoSuchElementException();
+			}
+			return othersIterator.next();
+		}
+		
+		@Override
+		public void remove() {
+			if (lastSlot >= 0) {
+				put(lastSlot, null);
+				lastSlot = -1;
+			} else if (othersIterator != null) {
+				othersIterator.remove();
+			} else {
+				throw new IllegalStateException();
+			}
+		}
+		
+		private void advanceSlot() {
+			do {
+				nextSlot++;
+			} while (nextSlot < slots.length && slots[nextSlot] == null);
+		}
+		
+		private Iterator<Entry<String, Link>> othersIterator() {
+			if (othersIterator == null) {
+				othersIterator = others().entrySet().iterator();
+			}
+			return othersIterator;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Registry of link relations which are stored in array slots of {@link Resource} links.
+ *
+ * <p>Standard relations are registered in advance. Register frequently used application relations once
+ * on startup; relations which are not registered are still accepted by {@link Resource#addLink(String, Link)}.</p>
+ */
+public final class LinkRelations {
+	
+	/** index of {@link Link#REL_SELF} */
+	public static final int SELF = 0;
+	
+	/** index of {@link Link#REL_FIRST} */
+	public static final int FIRST = 1;
+	
+	/** index of {@link Link#REL_PREVIOUS} */
+	public static final int PREVIOUS = 2;
+	
+	/** index of {@link Link#REL_NEXT} */
+	public static final int NEXT = 3;
+	
+	/** index of {@link Link#REL_LAST} */
+	public static final int LAST = 4;
+	
+	private static final Map<String, Integer> INDEXES = new ConcurrentHashMap<>();
+	
+	private static final AtomicReference<SerializedString[]> NAMES = new AtomicReference<>(new SerializedString[0]);
+	
+	static {
+		register(Link.REL_SELF);
+		register(Link.REL_FIRST);
+		register(Link.REL_PREVIOUS);
+		register(Link.REL_NEXT);
+		register(Link.REL_LAST);
+	}
+	
+	
+	private LinkRelations() {
+	}
+	
+	/**
+	 * Registers the relation.
+	 *
+	 * @param rel relation
+	 * @return the index of the relation, or the existing index if the relation is already registered
+	 */
+	public static synchronized int register(String rel) {
+		if (rel == null) {
+			throw new IllegalArgumentException("The rel must not be null");
+		}
+		Integer existing = INDEXES.get(rel);
+		if (existing != null) {
+			return existing;
+		}
+		SerializedString[] names = NAMES.get();
+		SerializedString[] newNames = Arrays.copyOf(names, names.length + 1);
+		newNames[names.length] = new SerializedString(rel);
+		NAMES.set(newNames);
+		INDEXES.put(rel, names.length);
+		return names.length;
+	}
+	
+	/**
+	 * Returns the index of the relation.
+	 *
+	 * @param rel relation
+	 * @return the index of the relation, or {@code -1} if the relation is not registered
+	 */
+	public static int indexOf(String rel) {
+		Integer index = INDEXES.get(rel);
+		return index == null ? -1 : index;
+	}
+	
+	/**
+	 * Returns the relation of the index.
+	 *
+	 * @param index the index of the relation
+	 * @return relation
+	 * @throws IndexOutOfBoundsException if the index is not registered
+	 */
+	public static String relOf(int index) {
+		return NAMES.get()[index].getValue();
+	}
+	
+	/**
+	 * Returns the number of registered relations.
+	 *
+	 * @return the number of registered relations
+	 */
+	public static int size() {
+		return NAMES.get().length;
+	}
+	
+	static SerializedString serializedNameOf(int index) {
+		return NAMES.get()[index];
+	}
+}
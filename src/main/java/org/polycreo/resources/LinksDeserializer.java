@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Deserializer for HAL {@code _links}, which expands CURIEs declared in the document and relative hrefs.
+ *
+ * <p>Relative hrefs are expanded with {@link LinkCompaction} given as an attribute.</p>
+ */
+@SuppressWarnings("serial")
+class LinksDeserializer extends StdDeserializer<Map<String, Link>> {
+	
+	/**
+	 * attribute key of CURIE name to href template map declared in the document. It may also be given as a
+	 * shared attribute, for parts of a document which are read separately, and is never modified.
+	 */
+	static final Object CURIE_TEMPLATES = new Object();
+	
+	
+	LinksDeserializer() {
+		super(Map.class);
+	}
+	
+	@Override
+	public Map<String, Link> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+		return deserialize(p, ctxt, new LinkMap());
+	}
+	
+	@Override
+	public Map<String, Link> deserialize(JsonParser p, DeserializationContext ctxt, Map<String, Link> links)
+			throws IOException {
+		JsonToken token = p.getCurrentToken();
+		if (token == JsonToken.START_OBJECT) {
+			token = p.nextToken();
+		}
+		Map<String, Link> compacted = new LinkedHashMap<>();
+		for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+			String rel = p.getCurrentName();
+			p.nextToken();
+			if (LinkCompaction.CURIES.equals(rel)) {
+				readCuries(p, ctxt);
+			} else if (p.getCurrentToken() == JsonToken.VALUE_NULL) {
+				compacted.put(rel, null);
+			} else {
+				compacted.put(rel, ctxt.readValue(p, Link.class));
+			}
+		}
+		if (token != JsonToken.END_OBJECT) {
+			return wrongToken(p, ctxt);
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, String> curieTemplates = (Map<String, String>) ctxt.getAttribute(CURIE_TEMPLATES);
+		LinkCompaction compaction = (LinkCompaction) ctxt.getAttribute(LinkCompaction.class);
+		for (Map.Entry<String, Link> entry : compacted.entrySet()) {
+			Link link = entry.getValue();
+			if (link != null && compaction != null) {
+				link.setHref(compaction.expandHref(link.getHref()));
+			}
+			links.put(LinkCompaction.expandRel(entry.getKey(), curieTemplates), link);
+		}
+		return links;
+	}
+	
+	private static void readCuries(JsonParser p, DeserializationContext ctxt) throws IOException {
+		JsonNode curies = ctxt.readValue(p, JsonNode.class);
+		@SuppressWarnings("unchecked")
+		Map<String, String> declared = (Map<String, String>) ctxt.getAttribute(CURIE_TEMPLATES);
+		Map<String, String> curieTemplates = declared == null ? new HashMap<>() : new HashMap<>(declared);
+		curieTemplates.putAll(curieTemplatesOf(curies));
+		ctxt.setAttribute(CURIE_TEMPLATES, curieTemplates);
+	}
+	
+	/**
+	 * Returns CURIE name to href template map of the {@code curies} array.
+	 *
+	 * @param curies the {@code curies} array, may be {@code null}
+	 * @return CURIE name to href template map
+	 */
+	static Map<String, String> curieTemplatesOf(JsonNode curies) {
+		if (curies == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, String> curieTemplates = new HashMap<>();
+		for (JsonNode curie : curies) {
+			JsonNode name = curie.get("name");
+			JsonNode href = curie.get("href");
+			if (name != null && href != null) {
+				curieTemplates.put(name.asText(), href.asText());
+			}
+		}
+		return curieTemplates;
+	}
+	
+	private Map<String, Link> wrongToken(JsonParser p, DeserializationContext ctxt) throws IOException {
+		@SuppressWarnings("unchecked")
+		Map<String, Link> result = (Map<String, Link>) ctxt.handleUnexpectedToken(handledType(), p);
+		return result;
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Serializer for HAL {@code _links}, which applies {@link LinkCompaction} given as an attribute.
+ *
+ * <p>CURIEs are declared in the {@code _links} of the root resource, or of each element when the root is an
+ * array of resources, so that they are in scope of all resources nested in it.</p>
+ */
+@SuppressWarnings("serial")
+class LinksSerializer extends StdSerializer<Map<String, Link>> {
+	
+	@SuppressWarnings("unchecked")
+	LinksSerializer() {
+		super((Class<Map<String, Link>>) (Class<?>) Map.class);
+	}
+	
+	@Override
+	public boolean isEmpty(SerializerProvider provider, Map<String, Link> value) {
+		if (value != null && value.isEmpty() == false) {
+			return false;
+		}
+		// the root resource declares CURIEs even without links
+		LinkCompaction compaction = (LinkCompaction) provider.getAttribute(LinkCompaction.class);
+		return compaction == null || compaction.getCuries().isEmpty() || provider.getGenerator() == null
+				|| isRoot(provider.getGenerator().getOutputContext()) == false;
+	}
+	
+	@Override
+	public void serialize(Map<String, Link> links, JsonGenerator gen, SerializerProvider provider)
+			throws IOException {
+		LinkCompaction compaction = (LinkCompaction) provider.getAttribute(LinkCompaction.class);
+		gen.writeStartObject();
+		if (compaction == null && links instanceof LinkMap) {
+			writeIndexed((LinkMap) links, gen, provider);
+		} else if (compaction == null) {
+			for (Map.Entry<String, Link> entry : links.entrySet()) {
+				gen.writeFieldName(entry.getKey());
+				provider.defaultSerializeValue(entry.getValue(), gen);
+			}
+		} else {
+			writeCompacted(links, compaction, gen);
+		}
+		gen.writeEndObject();
+	}
+	
+	private static void writeIndexed(LinkMap links, JsonGenerator gen, SerializerProvider provider)
+			throws IOException {
+		boolean raw = canWriteRaw(gen);
+		for (int i = 0; i < links.slotLength(); i++) {
+			Link link = links.slot(i);
+			if (link != null) {
+				if (raw) {
+					gen.writeFieldName(LinkRelations.serializedNameOf(i));
+				} else {
+					gen.writeFieldName(LinkRelations.relOf(i));
+				}
+				writeLink(link, raw, gen, provider);
+			}
+		}
+		for (Map.Entry<String, Link> entry : links.others().entrySet()) {
+			gen.writeFieldName(entry.getKey());
+			writeLink(entry.getValue(), raw, gen, provider);
+		}
+	}
+	
+	private static void writeLink(Link link, boolean raw, JsonGenerator gen, SerializerProvider provider)
+			throws IOException {
+		if (raw && link instanceof ImmutableLink) {
+			gen.writeRawValue(((ImmutableLink) link).getSerialized());
+		} else {
+			provider.defaultSerializeValue(link, gen);
+		}
+	}
+	
+	/**
+	 * Returns whether pre-encoded JSON is same as what the generator writes. Generators of other formats, and
+	 * token buffers such as of {@code valueToTree}, do not accept raw JSON.
+	 */
+	private static boolean canWriteRaw(JsonGenerator gen) {
+		return gen instanceof JsonGeneratorImpl
+				&& gen.getPrettyPrinter() == null
+				&& gen.getCharacterEscapes() == null
+				&& gen.isEnabled(JsonGenerator.Feature.QUOTE_FIELD_NAMES)
+				&& gen.isEnabled(JsonGenerator.Feature.ESCAPE_NON_ASCII) == false;
+	}
+	
+	private static void writeCompacted(Map<String, Link> links, LinkCompaction compaction, JsonGenerator gen)
+			throws IOException {
+		// the parent of the _links object is the object which owns it
+		if (compaction.getCuries().isEmpty() == false && isRoot(gen.getOutputContext().getParent())) {
+			writeCuries(compaction, gen);
+		}
+		for (Map.Entry<String, Link> entry : links.entrySet()) {
+			gen.writeFieldName(compaction.compactRel(entry.getKey()));
+			Link link = entry.getValue();
+			if (link == null) {
+				gen.writeNull();
+			} else {
+				gen.writeStartObject();
+				gen.writeStringField("href", compaction.compactHref(link.getHref()));
+				gen.writeEndObject();
+			}
+		}
+	}
+	
+	/**
+	 * Returns whether the object which owns the {@code _links} is the root of the document, or an element of the
+	 * root array.
+	 */
+	private static boolean isRoot(JsonStreamContext owner) {
+		JsonStreamContext parent = owner.getParent();
+		if (parent != null && parent.inArray()) {
+			parent = parent.getParent();
+		}
+		return parent != null && parent.inRoot();
+	}
+	
+	private static void writeCuries(LinkCompaction compaction, JsonGenerator gen) throws IOException {
+		gen.writeArrayFieldStart(LinkCompaction.CURIES);
+		for (Map.Entry<String, String> curie : compaction.getCuries().entrySet()) {
+			gen.writeStartObject();
+			gen.writeStringField("name", curie.getKey());
+			gen.writeStringField("href", curie.getValue() + LinkCompaction.REL_PLACEHOLDER);
+			gen.writeBooleanField("templated", true);
+			gen.writeEndObject();
+		}
+		gen.writeEndArray();
+	}
+}
@@ -102,6 +102,18 @@ public class PagedResources<T>extends Resource<PageMetadata> {
 		this.embeddedResources = Collections.singletonMap(key, content);
 	}
 	
+	/**
+	 * Creates a {@link PagedResources} instance without embeddedResources.
+	 *
+	 * @param metadata must not be {@code null}.
+	 */
+	PagedResources(PageMetadata metadata) {
+		super(metadata);
+		if (metadata == null) {
+			throw new IllegalArgumentException("The metadata must not be null");
+		}
+	}
+	
 	@Override
 	@JsonProperty("page")
 	@JsonUnwrapped(enabled = false)
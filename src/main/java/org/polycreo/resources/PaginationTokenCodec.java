@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+/**
+ * Codec of pagination tokens of {@link ChunkedResources}.
+ *
+ * @see BinaryPaginationTokenCodec
+ */
+public interface PaginationTokenCodec {
+	
+	/**
+	 * Encodes the keys into a token.
+	 *
+	 * @param keys the keys of the chunk
+	 * @return the pagination token
+	 * @throws IllegalArgumentException if a key is not supported by the codec
+	 */
+	String encode(PaginationKeys keys);
+	
+	/**
+	 * Decodes the token into keys.
+	 *
+	 * @param paginationToken the pagination token
+	 * @return the keys of the chunk
+	 * @throws IllegalArgumentException if the token is invalid or tampered
+	 */
+	PaginationKeys decode(String paginationToken);
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Serializes a resource with a large {@code _embedded} collection on multiple threads.
+ *
+ * <p>The collection is split into ranges, and each range is serialized concurrently into a pooled segment.
+ * The envelope, which is the resource with a placeholder in place of the collection, is serialized on the
+ * calling thread. Then the segments are stitched in order into the envelope with gathering writes. The output
+ * is identical to {@code writer.writeValueAsBytes(resource)}.</p>
+ *
+ * <p>Resources with fewer elements than the threshold, whose collection is embedded more than once, and writers
+ * with {@link LinkCompaction}, whose CURIEs are declared once per document, are serialized sequentially.
+ * Writers which pretty print are rejected.</p>
+ */
+public class ParallelResourcesWriter {
+	
+	/**
+	 * default minimum number of elements to serialize in parallel.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1024;
+	
+	private static final int MAX_POOLED_CAPACITY = 1 << 22;
+	
+	private static final SerializedString ELEMENT_SEPARATOR = new SerializedString(",");
+	
+	private static final Object PROBE = Collections.singletonMap("a", Arrays.asList(0, 0));
+	
+	private static final byte[] PROBE_JSON = "{\"a\":[0,0]},{\"a\":[0,0]}".getBytes(StandardCharsets.UTF_8);
+	
+	private static final byte[] START_ARRAY = {
+		'['
+	};
+	
+	private static final byte[] SEPARATOR = {
+		','
+	};
+	
+	private static final byte[] END_ARRAY = {
+		']'
+	};
+	
+	private final ObjectWriter writer;
+	
+	private final ObjectWriter elementWriter;
+	
+	private final Executor executor;
+	
+	private final int parallelism;
+	
+	private final int threshold;
+	
+	private final String placeholder = "polycreo-segment-" + UUID.randomUUID();
+	
+	private final byte[] quotedPlaceholder = ('"' + placeholder + '"').getBytes(StandardCharsets.UTF_8);
+	
+	private final BlockingQueue<SegmentBuffer> pool;
+	
+	
+	/**
+	 * Creates a {@link ParallelResourcesWriter} instance with {@link #DEFAULT_THRESHOLD}.
+	 *
+	 * @param writer the writer to serialize with, must not be {@code null}
+	 * @param executor the executor to serialize ranges on, must not be {@code null}
+	 * @param parallelism the number of ranges, must be positive
+	 */
+	public ParallelResourcesWriter(ObjectWriter writer, Executor executor, int parallelism) {
+		this(writer, executor, parallelism, DEFAULT_THRESHOLD);
+	}
+	
+	/**
+	 * Creates a {@link ParallelResourcesWriter} instance.
+	 *
+	 * @param writer the writer to serialize with, must not be {@code null}
+	 * @param executor the executor to serialize ranges on, must not be {@code null}
+	 * @param parallelism the number of ranges, must be positive
+	 * @param threshold the minimum number of elements to serialize in parallel
+	 * @throws IllegalArgumentException if the writer pretty prints
+	 */
+	public ParallelResourcesWriter(ObjectWriter writer, Executor executor, int parallelism, int threshold) {
+		if (writer == null) {
+			throw new IllegalArgumentException("The writer must not be null");
+		}
+		if (executor == null) {
+			throw new IllegalArgumentException("The executor must not be null");
+		}
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("The parallelism must be positive");
+		}
+		// elements are written as root values, but without root-level wrapping
+		ObjectWriter elementWriter = writer.forType(Object.class).withoutRootName();
+		if (writer.isEnabled(SerializationFeature.INDENT_OUTPUT) || isCompact(elementWriter) == false) {
+			throw new IllegalArgumentException("The writer must not pretty print");
+		}
+		this.writer = writer;
+		this.elementWriter = elementWriter;
+		this.executor = executor;
+		this.parallelism = parallelism;
+		this.threshold = Math.max(threshold, 1);
+		this.pool = new ArrayBlockingQueue<>(parallelism + 1);
+	}
+	
+	/**
+	 * Writes the resource to the channel.
+	 *
+	 * @param resource the resource to write
+	 * @param channel the channel to write to
+	 * @throws IOException if serialization or I/O fails
+	 */
+	public void write(Resource<?> resource, GatheringByteChannel channel) throws IOException {
+		List<SegmentBuffer> segments = new ArrayList<>(parallelism + 1);
+		try {
+			ByteBuffer[] buffers = serialize(resource, segments);
+			long remaining = 0;
+			for (ByteBuffer buffer : buffers) {
+				remaining += buffer.remaining();
+			}
+			while (remaining > 0) {
+				remaining -= channel.write(buffers);
+			}
+		} finally {
+			segments.forEach(this::release);
+		}
+	}
+	
+	/**
+	 * Serializes the resource into a byte array.
+	 *
+	 * @param resource the resource to write
+	 * @return the serialized bytes
+	 * @throws IOException if serialization fails
+	 */
+	public byte[] writeValueAsBytes(Resource<?> resource) throws IOException {
+		List<SegmentBuffer> segments = new ArrayList<>(parallelism + 1);
+		try {
+			ByteBuffer[] buffers = serialize(resource, segments);
+			int length = 0;
+			for (ByteBuffer buffer : buffers) {
+				length += buffer.remaining();
+			}
+			ByteBuffer result = ByteBuffer.allocate(length);
+			for (ByteBuffer buffer : buffers) {
+				result.put(buffer);
+			}
+			return result.array();
+		} finally {
+			segments.forEach(this::release);
+		}
+	}
+	
+	private ByteBuffer[] serialize(Resource<?> resource, List<SegmentBuffer> segments) throws IOException {
+		Collection<?> target = largestCollection(resource);
+		if (target == null || target.size() < threshold
+				|| writer.getAttributes().getAttribute(LinkCompaction.class) != null) {
+			return new ByteBuffer[] {
+				writeSequentially(resource, segments)
+			};
+		}
+		SegmentBuffer envelope = acquire(segments);
+		writer.withAttribute(EmbeddedPlaceholder.class, new EmbeddedPlaceholder(target, placeholder))
+			.writeValue(envelope, resource);
+		int index = envelope.indexOf(quotedPlaceholder);
+		if (index < 0 || envelope.indexOf(quotedPlaceholder, index + quotedPlaceholder.length) >= 0) {
+			// the collection is not written by EmbeddedResourcesSerializer, or is embedded more than once
+			return new ByteBuffer[] {
+				writeSequentially(resource, segments)
+			};
+		}
+		
+		List<?> elements = target instanceof List && target instanceof RandomAccess
+				? (List<?>) target : new ArrayList<>(target);
+		int ranges = Math.min(parallelism, elements.size());
+		int rangeSize = (elements.size() + ranges - 1) / ranges;
+		List<CompletableFuture<SegmentBuffer>> futures = new ArrayList<>(ranges);
+		for (int from = rangeSize; from < elements.size(); from += rangeSize) {
+			int start = from;
+			int end = Math.min(from + rangeSize, elements.size());
+			futures.add(CompletableFuture.supplyAsync(() -> writeRange(elements, start, end), executor));
+		}
+		
+		List<SegmentBuffer> written = new ArrayList<>(ranges);
+		boolean completed = false;
+		try {
+			written.add(writeRange(elements, 0, rangeSize));
+			for (CompletableFuture<SegmentBuffer> future : futures) {
+				written.add(future.join());
+			}
+			completed = true;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			}
+			throw e;
+		} finally {
+			segments.addAll(written);
+			if (completed == false) {
+				// ranges which have not been joined release their segments when they complete
+				for (int i = Math.max(written.size() - 1, 0); i < futures.size(); i++) {
+					futures.get(i).thenAccept(this::release);
+				}
+			}
+		}
+		
+		List<ByteBuffer> buffers = new ArrayList<>(written.size() * 2 + 3);
+		buffers.add(envelope.toByteBuffer(0, index));
+		buffers.add(ByteBuffer.wrap(START_ARRAY));
+		for (int i = 0; i < written.size(); i++) {
+			if (i > 0) {
+				buffers.add(ByteBuffer.wrap(SEPARATOR));
+			}
+			buffers.add(written.get(i).toByteBuffer());
+		}
+		buffers.add(ByteBuffer.wrap(END_ARRAY));
+		buffers.add(envelope.toByteBuffer(index + quotedPlaceholder.length, envelope.size()));
+		return buffers.toArray(new ByteBuffer[0]);
+	}
+	
+	private ByteBuffer writeSequentially(Resource<?> resource, List<SegmentBuffer> segments) throws IOException {
+		SegmentBuffer segment = acquire(segments);
+		writer.writeValue(segment, resource);
+		return segment.toByteBuffer();
+	}
+	
+	private SegmentBuffer writeRange(List<?> elements, int from, int to) {
+		SegmentBuffer segment = acquire();
+		try (JsonGenerator gen = elementWriter.getFactory().createGenerator(segment, JsonEncoding.UTF8)) {
+			gen.setRootValueSeparator(ELEMENT_SEPARATOR);
+			for (int i = from; i < to; i++) {
+				elementWriter.writeValue(gen, elements.get(i));
+			}
+		} catch (IOException e) {
+			release(segment);
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			release(segment);
+			throw e;
+		}
+		return segment;
+	}
+	
+	/**
+	 * Returns whether the writer writes root values compactly, separated only by the element separator.
+	 */
+	private static boolean isCompact(ObjectWriter elementWriter) {
+		SegmentBuffer probe = new SegmentBuffer(PROBE_JSON.length);
+		try (JsonGenerator gen = elementWriter.getFactory().createGenerator(probe, JsonEncoding.UTF8)) {
+			gen.setRootValueSeparator(ELEMENT_SEPARATOR);
+			elementWriter.writeValue(gen, PROBE);
+			elementWriter.writeValue(gen, PROBE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return probe.size() == PROBE_JSON.length && probe.indexOf(PROBE_JSON) == 0;
+	}
+	
+	private SegmentBuffer acquire(List<SegmentBuffer> segments) {
+		SegmentBuffer segment = acquire();
+		segments.add(segment);
+		return segment;
+	}
+	
+	private SegmentBuffer acquire() {
+		SegmentBuffer segment = pool.poll();
+		return segment == null ? new SegmentBuffer() : segment;
+	}
+	
+	private void release(SegmentBuffer segment) {
+		if (segment.capacity() <= MAX_POOLED_CAPACITY) {
+			segment.reset();
+			pool.offer(segment);
+		}
+	}
+	
+	private static Collection<?> largestCollection(Resource<?> resource) {
+		Map<String, ?> embeddedResources = resource.getEmbeddedResources();
+		if (embeddedResources == null) {
+			return null;
+		}
+		Collection<?> largest = null;
+		for (Object embedded : embeddedResources.values()) {
+			if (embedded instanceof Collection
+					&& (largest == null || ((Collection<?>) embedded).size() > largest.size())) {
+				largest = (Collection<?>) embedded;
+			}
+		}
+		return largest;
+	}
+}
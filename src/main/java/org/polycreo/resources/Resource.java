@@ -30,6 +30,8 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 /**
  * Resource element in HAL.
@@ -44,7 +46,7 @@ public class Resource<T> {
 	@Getter(onMethod = @__(@JsonUnwrapped))
 	private T value;
 	
-	private final Map<String, Link> links = new HashMap<>();
+	private final Map<String, Link> links = new LinkMap();
 	
 	private final Map<String, Object> embeddedResources = new HashMap<>();
 	
@@ -65,6 +67,30 @@ public class Resource<T> {
 		return this;
 	}
 	
+	/**
+	 * Adds the given link to the resource.
+	 *
+	 * @param rel the index of relation registered in {@link LinkRelations}
+	 * @param link link
+	 * @return this
+	 * @throws IllegalArgumentException if the index is not registered
+	 * @throws UnsupportedOperationException if the add operation is not supported by this resource
+	 */
+	public Resource<T> addLink(int rel, Link link) {
+		if (link == null) {
+			throw new IllegalArgumentException("Link must not be null!");
+		}
+		if (rel < 0 || rel >= LinkRelations.size()) {
+			throw new IllegalArgumentException("The rel index is not registered: " + rel);
+		}
+		if (links instanceof LinkMap) {
+			((LinkMap) links).put(rel, link);
+		} else {
+			links.put(LinkRelations.relOf(rel), link);
+		}
+		return this;
+	}
+	
 	/**
 	 * Returns whether the resource contains {@link Link}s at all.
 	 *
@@ -87,10 +113,14 @@ public class Resource<T> {
 	/**
 	 * Returns all {@link Link}s contained in this resource.
 	 *
+	 * <p>Serialized {@code _links} can be compacted with {@link LinkCompaction}.</p>
+	 *
 	 * @return relation-link map
 	 */
 	@JsonInclude(Include.NON_EMPTY)
 	@JsonProperty("_links")
+	@JsonSerialize(using = LinksSerializer.class)
+	@JsonDeserialize(using = LinksDeserializer.class)
 	public Map<String, Link> getLinks() {
 		return links;
 	}
@@ -114,13 +144,29 @@ public class Resource<T> {
 		return links.get(rel);
 	}
 	
+	/**
+	 * Returns the link with the given rel.
+	 *
+	 * @param rel the index of relation registered in {@link LinkRelations}
+	 * @return the link with the given rel or {@literal null} if none found.
+	 */
+	public Link getLink(int rel) {
+		if (links instanceof LinkMap) {
+			return ((LinkMap) links).get(rel);
+		}
+		return links.get(LinkRelations.relOf(rel));
+	}
+	
 	/**
 	 * Returns HAL embedded resource map.
 	 *
+	 * <p>Repeated embedded objects can be serialized once with {@link EmbeddedDeduplicator}.</p>
+	 *
 	 * @return HAL embedded resource map.
 	 */
 	@JsonInclude(Include.NON_EMPTY)
 	@JsonProperty("_embedded")
+	@JsonSerialize(using = EmbeddedResourcesSerializer.class)
 	public Map<String, ?> getEmbeddedResources() {
 		return embeddedResources;
 	}
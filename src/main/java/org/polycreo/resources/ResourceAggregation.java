@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Builder which resolves embedded resources of a {@link Resource} concurrently.
+ *
+ * <pre>
+ * Resource&lt;Dashboard&gt; resource = new ResourceAggregation&lt;&gt;(new Resource&lt;&gt;(dashboard), executor)
+ *     .timeout(Duration.ofMillis(200))
+ *     .omitFailures(true)
+ *     .embed("author", () -&gt; userRepository.findById(authorId))
+ *     .embed("stats", statsClient.fetchAsync(dashboardId))
+ *     .aggregate();
+ * </pre>
+ *
+ * <p>Suppliers run on the given {@link Executor}, such as {@code Executors.newVirtualThreadPerTaskExecutor()}
+ * where virtual threads are available. The deadline of each relation is measured from the start of
+ * {@link #aggregate()}, so the latency of aggregation is that of the slowest relation. Suppliers still
+ * running when aggregation ends, such as those which missed the deadline, are interrupted.</p>
+ *
+ * @param <T> the type of the resource value
+ */
+public class ResourceAggregation<T> {
+	
+	private final Resource<T> resource;
+	
+	private final Executor executor;
+	
+	private final Map<String, Relation> relations = new LinkedHashMap<>();
+	
+	private Duration timeout;
+	
+	private boolean omitFailures;
+	
+	
+	/**
+	 * Creates a {@link ResourceAggregation} instance.
+	 *
+	 * @param resource the resource to embed resources into, must not be {@code null}.
+	 * @param executor the executor to run suppliers, must not be {@code null}.
+	 */
+	public ResourceAggregation(Resource<T> resource, Executor executor) {
+		if (resource == null) {
+			throw new IllegalArgumentException("The resource must not be null");
+		}
+		if (executor == null) {
+			throw new IllegalArgumentException("The executor must not be null");
+		}
+		this.resource = resource;
+		this.executor = executor;
+	}
+	
+	/**
+	 * Sets the default deadline of relations. Relations wait without deadline by default.
+	 *
+	 * @param timeout the deadline measured from the start of {@link #aggregate()}
+	 * @return this
+	 */
+	public ResourceAggregation<T> timeout(Duration timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+	
+	/**
+	 * Sets whether relations which fail or miss the deadline are omitted from the resource.
+	 * Otherwise {@link #aggregate()} throws {@link CompletionException}.
+	 *
+	 * @param omitFailures {@code true} to omit failed relations
+	 * @return this
+	 */
+	public ResourceAggregation<T> omitFailures(boolean omitFailures) {
+		this.omitFailures = omitFailures;
+		return this;
+	}
+	
+	/**
+	 * Adds the relation which is resolved by the supplier on the executor.
+	 *
+	 * @param relationship rel
+	 * @param supplier supplier of the embedded resource
+	 * @return this
+	 */
+	public ResourceAggregation<T> embed(String relationship, Supplier<?> supplier) {
+		return embed(relationship, supplier, null);
+	}
+	
+	/**
+	 * Adds the relation which is resolved by the supplier on the executor.
+	 *
+	 * @param relationship rel
+	 * @param supplier supplier of the embedded resource
+	 * @param deadline the deadline of the relation, or {@code null} to use the default
+	 * @return this
+	 */
+	public ResourceAggregation<T> embed(String relationship, Supplier<?> supplier, Duration deadline) {
+		if (supplier == null) {
+			throw new IllegalArgumentException("The supplier must not be null");
+		}
+		relations.put(relationship, new Relation(supplier, null, deadline));
+		return this;
+	}
+	
+	/**
+	 * Adds the relation which is resolved by the future.
+	 *
+	 * @param relationship rel
+	 * @param future future of the embedded resource
+	 * @return this
+	 */
+	public ResourceAggregation<T> embed(String relationship, CompletableFuture<?> future) {
+		return embed(relationship, future, null);
+	}
+	
+	/**
+	 * Adds the relation which is resolved by the future.
+	 *
+	 * @param relationship rel
+	 * @param future future of the embedded resource
+	 * @param deadline the deadline of the relation, or {@code null} to use the default
+	 * @return this
+	 */
+	public ResourceAggregation<T> embed(String relationship, CompletableFuture<?> future, Duration deadline) {
+		if (future == null) {
+			throw new IllegalArgumentException("The future must not be null");
+		}
+		relations.put(relationship, new Relation(null, future, deadline));
+		return this;
+	}
+	
+	/**
+	 * Resolves all relations concurrently, and embeds them into the resource.
+	 *
+	 * @return the resource
+	 * @throws CompletionException if a relation fails or misses the deadline, and failures are not omitted
+	 * @throws UnsupportedOperationException if the embed operation is not supported by the resource
+	 * @throws RejectedExecutionException if the executor rejects a supplier, after started relations are cancelled
+	 */
+	public Resource<T> aggregate() {
+		long start = System.nanoTime();
+		try {
+			// relations started before the executor rejects one are cancelled as well
+			relations.values().forEach(relation -> relation.start(executor));
+			for (Map.Entry<String, Relation> entry : relations.entrySet()) {
+				Relation relation = entry.getValue();
+				Object embedded;
+				try {
+					embedded = await(relation.future(), start, relation.deadlineOr(timeout));
+				} catch (ExecutionException | TimeoutException | CancellationException e) {
+					if (omitFailures == false) {
+						throw new CompletionException("Failed to resolve " + entry.getKey(), unwrap(e));
+					}
+					continue;
+				}
+				resource.embedResource(entry.getKey(), embedded);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CompletionException(e);
+		} finally {
+			relations.values().forEach(Relation::cancel);
+		}
+		return resource;
+	}
+	
+	private static Object await(Future<?> future, long start, Duration deadline)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		if (deadline == null) {
+			return future.get();
+		}
+		long remaining = deadline.toNanos() - (System.nanoTime() - start);
+		return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+	}
+	
+	private static Throwable unwrap(Exception e) {
+		return e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+	}
+	
+	
+	private static class Relation {
+		
+		private final Supplier<?> supplier;
+		
+		private final Duration deadline;
+		
+		private Future<?> future;
+		
+		
+		Relation(Supplier<?> supplier, Future<?> future, Duration deadline) {
+			this.supplier = supplier;
+			this.future = future;
+			this.deadline = deadline;
+		}
+		
+		void start(Executor executor) {
+			if (supplier != null) {
+				// unlike CompletableFuture, FutureTask interrupts the supplier when cancelled
+				FutureTask<?> task = new FutureTask<>(supplier::get);
+				future = task;
+				executor.execute(task);
+			}
+		}
+		
+		Future<?> future() {
+			return future;
+		}
+		
+		Duration deadlineOr(Duration defaultDeadline) {
+			return deadline != null ? deadline : defaultDeadline;
+		}
+		
+		/**
+		 * Cancels the supplier, interrupting it if running, if it is started by this aggregation.
+		 */
+		void cancel() {
+			if (supplier != null && future != null) {
+				future.cancel(true);
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import org.polycreo.resources.ChunkedResources.ChunkMetadata;
+import org.polycreo.resources.PagedResources.PageMetadata;
+
+/**
+ * Pre-builds and caches Jackson serializers and deserializers for HAL resource types.
+ *
+ * <p>Call {@link #warmUp(Class...)} on application startup, then use {@link #writerFor(JavaType)} and
+ * {@link #readerFor(JavaType)} to obtain the cached {@link ObjectWriter} and {@link ObjectReader}.</p>
+ */
+public class ResourceWarmer {
+	
+	private final ObjectMapper objectMapper;
+	
+	private final Map<JavaType, ObjectWriter> writers = new ConcurrentHashMap<>();
+	
+	private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+	
+	
+	/**
+	 * Creates a {@link ResourceWarmer} instance.
+	 *
+	 * @param objectMapper must not be {@code null}.
+	 */
+	public ResourceWarmer(ObjectMapper objectMapper) {
+		if (objectMapper == null) {
+			throw new IllegalArgumentException("The objectMapper must not be null");
+		}
+		this.objectMapper = objectMapper;
+	}
+	
+	/**
+	 * Pre-builds serializers and deserializers of {@link Resource}, {@link PagedResources} and
+	 * {@link ChunkedResources} for each of the given content types.
+	 *
+	 * @param contentTypes the {@code T} types of the resources
+	 * @return this
+	 */
+	public ResourceWarmer warmUp(Class<?>... contentTypes) {
+		TypeFactory typeFactory = objectMapper.getTypeFactory();
+		prefetch(typeFactory.constructType(Link.class));
+		prefetch(typeFactory.constructType(PageMetadata.class));
+		prefetch(typeFactory.constructType(ChunkMetadata.class));
+		for (Class<?> contentType : contentTypes) {
+			JavaType content = typeFactory.constructType(contentType);
+			JavaType resource = typeFactory.constructParametricType(Resource.class, content);
+			List<JavaType> types = Arrays.asList(
+					content,
+					resource,
+					typeFactory.constructParametricType(PagedResources.class, content),
+					typeFactory.constructParametricType(PagedResources.class, resource),
+					typeFactory.constructParametricType(ChunkedResources.class, content),
+					typeFactory.constructParametricType(ChunkedResources.class, resource));
+			types.forEach(this::prefetch);
+		}
+		return this;
+	}
+	
+	/**
+	 * Returns the cached {@link ObjectWriter} for the given type.
+	 *
+	 * @param type the root type to serialize
+	 * @return the {@link ObjectWriter} with pre-fetched root serializer
+	 */
+	public ObjectWriter writerFor(JavaType type) {
+		return writers.computeIfAbsent(type, objectMapper::writerFor);
+	}
+	
+	/**
+	 * Returns the cached {@link ObjectWriter} for the given type.
+	 *
+	 * @param type the root type to serialize
+	 * @return the {@link ObjectWriter} with pre-fetched root serializer
+	 */
+	public ObjectWriter writerFor(TypeReference<?> type) {
+		return writerFor(objectMapper.getTypeFactory().constructType(type));
+	}
+	
+	/**
+	 * Returns the cached {@link ObjectReader} for the given type.
+	 *
+	 * @param type the root type to deserialize
+	 * @return the {@link ObjectReader} with pre-fetched root deserializer
+	 */
+	public ObjectReader readerFor(JavaType type) {
+		return readers.computeIfAbsent(type, objectMapper::readerFor);
+	}
+	
+	/**
+	 * Returns the cached {@link ObjectReader} for the given type.
+	 *
+	 * @param type the root type to deserialize
+	 * @return the {@link ObjectReader} with pre-fetched root deserializer
+	 */
+	public ObjectReader readerFor(TypeReference<?> type) {
+		return readerFor(objectMapper.getTypeFactory().constructType(type));
+	}
+	
+	private void prefetch(JavaType type) {
+		writerFor(type);
+		readerFor(type);
+	}
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Writes resources with recycled output buffers and generators.
+ *
+ * <p>Unlike {@code writeValueAsBytes}, which allocates a new generator and result array for each call, each
+ * thread reuses a growable buffer and the generator bound to it. Virtual threads, which are too many to keep
+ * buffers for each, share a bounded pool instead. A caller-provided {@link ByteBuffer}, which may be direct, is
+ * written by a generator bound to it without an intermediate copy. Channels and streams are written from the
+ * buffer. With a pretty printer, only the buffer is reused, since generators keep the state of the previous
+ * root value.</p>
+ *
+ * <pre>
+ * ResourceWriter resourceWriter = new ResourceWriter(objectMapper.writer());
+ * resourceWriter.write(resources, channel);
+ * </pre>
+ */
+public class ResourceWriter {
+	
+	/**
+	 * default maximum number of recycled buffers shared by virtual threads.
+	 */
+	public static final int DEFAULT_POOL_SIZE = 64;
+	
+	private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+	
+	private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+	
+	private final ObjectWriter writer;
+	
+	private final ThreadLocal<Slot> slots = new ThreadLocal<>();
+	
+	private final BlockingQueue<Slot> pool;
+	
+	
+	/**
+	 * Creates a {@link ResourceWriter} instance with {@link #DEFAULT_POOL_SIZE}.
+	 *
+	 * @param writer the writer to serialize with, must not be {@code null}
+	 */
+	public ResourceWriter(ObjectWriter writer) {
+		this(writer, DEFAULT_POOL_SIZE);
+	}
+	
+	/**
+	 * Creates a {@link ResourceWriter} instance.
+	 *
+	 * @param writer the writer to serialize with, must not be {@code null}
+	 * @param poolSize the maximum number of recycled buffers shared by virtual threads, must be positive
+	 */
+	public ResourceWriter(ObjectWriter writer, int poolSize) {
+		if (writer == null) {
+			throw new IllegalArgumentException("The writer must not be null");
+		}
+		if (poolSize <= 0) {
+			throw new IllegalArgumentException("The poolSize must be positive");
+		}
+		this.writer = writer;
+		this.pool = new ArrayBlockingQueue<>(poolSize);
+	}
+	
+	/**
+	 * Serializes the value into the buffer, from its position.
+	 *
+	 * @param value the value to write
+	 * @param target the buffer to write to, heap or direct
+	 * @return the number of written bytes
+	 * @throws BufferOverflowException if the remaining of the buffer is insufficient, in which case the
+	 *             position of the buffer is unchanged, while bytes after it may be overwritten
+	 * @throws IOException if serialization fails
+	 */
+	public int write(Object value, ByteBuffer target) throws IOException {
+		Slot slot = acquire();
+		try {
+			return slot.serialize(writer, value, target);
+		} finally {
+			release(slot);
+		}
+	}
+	
+	/**
+	 * Serializes the value into the channel.
+	 *
+	 * @param value the value to write
+	 * @param channel the channel to write to
+	 * @return the number of written bytes
+	 * @throws IOException if serialization or I/O fails
+	 */
+	public int write(Object value, WritableByteChannel channel) throws IOException {
+		Slot slot = acquire();
+		try {
+			ByteBuffer source = slot.serialize(writer, value).toByteBuffer();
+			int size = source.remaining();
+			while (source.hasRemaining()) {
+				channel.write(source);
+			}
+			return size;
+		} finally {
+			release(slot);
+		}
+	}
+	
+	/**
+	 * Serializes the value into the stream. The stream is not flushed nor closed.
+	 *
+	 * @param value the value to write
+	 * @param out the stream to write to
+	 * @return the number of written bytes
+	 * @throws IOException if serialization or I/O fails
+	 */
+	public int write(Object value, OutputStream out) throws IOException {
+		Slot slot = acquire();
+		try {
+			SegmentBuffer buffer = slot.serialize(writer, value);
+			buffer.writeTo(out);
+			return buffer.size();
+		} finally {
+			release(slot);
+		}
+	}
+	
+	private Slot acquire() {
+		Slot slot;
+		if (isVirtual(Thread.currentThread())) {
+			slot = pool.poll();
+		} else {
+			slot = slots.get();
+			if (slot == null) {
+				slot = new Slot(true);
+				slots.set(slot);
+			}
+		}
+		if (slot == null || slot.inUse) {
+			// pool exhausted, or reentrant write from a serializer
+			return new Slot(false);
+		}
+		slot.inUse = true;
+		return slot;
+	}
+	
+	private void release(Slot slot) {
+		slot.inUse = false;
+		if (slot.buffer.capacity() > MAX_RETAINED_CAPACITY) {
+			slot.discard();
+			if (slot.threadBound) {
+				slots.remove();
+			}
+			return;
+		}
+		slot.buffer.reset();
+		if (slot.threadBound == false) {
+			pool.offer(slot);
+		}
+	}
+	
+	private static boolean isVirtual(Thread thread) {
+		if (IS_VIRTUAL == null) {
+			return false;
+		}
+		try {
+			return (boolean) IS_VIRTUAL.invokeExact(thread);
+		} catch (Throwable e) { // NOPMD AvoidCatchingThrowable
+			return false;
+		}
+	}
+	
+	private static MethodHandle findIsVirtual() {
+		try {
+			return MethodHandles.publicLookup()
+				.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			// before Java 21
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Buffer and the generator permanently bound to it, and the generator bound to caller-provided buffers.
+	 */
+	private static class Slot {
+		
+		private final boolean threadBound;
+		
+		private final SegmentBuffer buffer = new SegmentBuffer();
+		
+		private final ByteBufferOutputStream targetStream = new ByteBufferOutputStream();
+		
+		private JsonGenerator generator;
+		
+		private JsonGenerator targetGenerator;
+		
+		private boolean inUse;
+		
+		
+		Slot(boolean threadBound) {
+			this.threadBound = threadBound;
+		}
+		
+		SegmentBuffer serialize(ObjectWriter writer, Object value) throws IOException {
+			buffer.reset();
+			JsonGenerator reusable = generator;
+			// the generator may be left in the middle of a structure on failure
+			generator = null;
+			try {
+				generator = write(writer, reusable, buffer, value);
+			} catch (IOException | RuntimeException e) {
+				buffer.reset();
+				throw e;
+			}
+			return buffer;
+		}
+		
+		int serialize(ObjectWriter writer, Object value, ByteBuffer target) throws IOException {
+			int start = target.position();
+			JsonGenerator reusable = targetGenerator;
+			targetGenerator = null;
+			targetStream.target = target;
+			try {
+				targetGenerator = write(writer, reusable, targetStream, value);
+			} catch (IOException | RuntimeException e) {
+				target.position(start);
+				if (targetStream.overflowed) {
+					// serializers wrap the exception when the generator flushes in the middle of the value
+					throw new BufferOverflowException();
+				}
+				throw e;
+			} finally {
+				targetStream.target = null;
+				targetStream.overflowed = false;
+			}
+			return target.position() - start;
+		}
+		
+		void discard() {
+			generator = null;
+			targetGenerator = null;
+			buffer.reset();
+		}
+		
+		/**
+		 * Writes the value, and returns the generator to reuse for the next value, or {@code null} if none.
+		 */
+		private static JsonGenerator write(ObjectWriter writer, JsonGenerator reusable, OutputStream out,
+				Object value) throws IOException {
+			JsonGenerator generator = reusable;
+			if (generator == null) {
+				generator = writer.getFactory().createGenerator(out, JsonEncoding.UTF8);
+				generator.setRootValueSeparator(null);
+			}
+			writer.writeValue(generator, value);
+			generator.flush();
+			if (generator.getPrettyPrinter() != null) {
+				// a pretty printer would write its root separator before the next value
+				generator.close();
+				return null;
+			}
+			return generator;
+		}
+	}
+	
+	/**
+	 * Stream which writes into the current target buffer, and fails without partial writes when it is full.
+	 */
+	private static class ByteBufferOutputStream extends OutputStream {
+		
+		private ByteBuffer target;
+		
+		private boolean overflowed;
+		
+		
+		@Override
+		public void write(int b) {
+			if (target.hasRemaining() == false) {
+				overflowed = true;
+				throw new BufferOverflowException();
+			}
+			target.put((byte) b);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) {
+			if (len > target.remaining()) {
+				overflowed = true;
+				throw new BufferOverflowException();
+			}
+			target.put(b, off, len);
+		}
+	}
+}
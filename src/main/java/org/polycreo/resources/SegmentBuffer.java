@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer which can be reset and reused, unlike {@link java.io.ByteArrayOutputStream}.
+ */
+final class SegmentBuffer extends OutputStream {
+	
+	private static final int DEFAULT_CAPACITY = 8192;
+	
+	private byte[] bytes;
+	
+	private int count;
+	
+	
+	SegmentBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	SegmentBuffer(int capacity) {
+		this.bytes = new byte[capacity];
+	}
+	
+	@Override
+	public void write(int b) {
+		ensureCapacity(count + 1);
+		bytes[count++] = (byte) b;
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) {
+		ensureCapacity(count + len);
+		System.arraycopy(b, off, bytes, count, len);
+		count += len;
+	}
+	
+	/**
+	 * Returns the number of written bytes.
+	 *
+	 * @return the number of written bytes
+	 */
+	int size() {
+		return count;
+	}
+	
+	/**
+	 * Returns the capacity of the backing array.
+	 *
+	 * @return the capacity
+	 */
+	int capacity() {
+		return bytes.length;
+	}
+	
+	/**
+	 * Discards written bytes, keeping the backing array.
+	 */
+	void reset() {
+		count = 0;
+	}
+	
+	/**
+	 * Returns the index of the first occurrence of the pattern in the written bytes.
+	 *
+	 * @param pattern the bytes to search
+	 * @return the index, or {@code -1} if not found
+	 */
+	int indexOf(byte[] pattern) {
+		return indexOf(pattern, 0);
+	}
+	
+	/**
+	 * Returns the index of the first occurrence of the pattern in the written bytes, from the given index.
+	 *
+	 * @param pattern the bytes to search
+	 * @param from the index to start from
+	 * @return the index, or {@code -1} if not found
+	 */
+	int indexOf(byte[] pattern, int from) {
+		for (int i = from; i <= count - pattern.length; i++) {
+			if (matches(i, pattern)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Writes the written bytes to the stream.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if an I/O error occurs
+	 */
+	void writeTo(OutputStream out) throws IOException {
+		out.write(bytes, 0, count);
+	}
+	
+	/**
+	 * Returns a buffer which wraps the written bytes, without copying.
+	 *
+	 * @param from the start index, inclusive
+	 * @param to the end index, exclusive
+	 * @return the buffer
+	 */
+	ByteBuffer toByteBuffer(int from, int to) {
+		return ByteBuffer.wrap(bytes, from, to - from);
+	}
+	
+	/**
+	 * Returns a buffer which wraps all written bytes, without copying.
+	 *
+	 * @return the buffer
+	 */
+	ByteBuffer toByteBuffer() {
+		return toByteBuffer(0, count);
+	}
+	
+	private boolean matches(int offset, byte[] pattern) {
+		for (int j = 0; j < pattern.length; j++) {
+			if (bytes[offset + j] != pattern[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if (capacity > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length << 1));
+		}
+	}
+}
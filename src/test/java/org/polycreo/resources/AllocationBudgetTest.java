@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.polycreo.chunkrequests.ChunkRequest;
+import org.polycreo.chunks.Chunk;
+import org.polycreo.chunks.ChunkImpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.polycreo.resources.ResourceTest.SampleBean;
+
+/**
+ * Allocation regression test for the hot paths of {@link Resource}, {@link PagedResources} and
+ * {@link ChunkedResources}.
+ *
+ * <p>Budgets (bytes per operation) are configured in {@code allocation-budgets.properties}.</p>
+ */
+@Slf4j
+public class AllocationBudgetTest {
+	
+	private static final ObjectMapper OM = new ObjectMapper();
+	
+	private static final int ELEMENTS = 20;
+	
+	private AllocationMeter meter;
+	
+	private List<SampleBean> beans;
+	
+	
+	@Before
+	public void setUp() throws Exception {
+		meter = new AllocationMeter();
+		assumeTrue("thread allocated memory is not supported", meter.isSupported());
+		beans = new ArrayList<>();
+		for (int i = 0; i < ELEMENTS; i++) {
+			beans.add(new SampleBean("foo" + i, "bar" + i));
+		}
+	}
+	
+	@Test
+	public void testResource_Construct() throws Exception {
+		assertWithinBudget("resource.construct", this::newResource);
+	}
+	
+	@Test
+	public void testResource_Serialize() throws Exception {
+		Resource<SampleBean> resource = newResource();
+		assertWithinBudget("resource.serialize", () -> OM.writeValueAsString(resource));
+	}
+	
+	@Test
+	public void testPagedResources_Construct() throws Exception {
+		assertWithinBudget("paged.construct", () -> new PagedResources<>("beans", beans));
+	}
+	
+	@Test
+	public void testPagedResources_Serialize() throws Exception {
+		PagedResources<SampleBean> resources = new PagedResources<>("beans", beans);
+		assertWithinBudget("paged.serialize", () -> OM.writeValueAsString(resources));
+	}
+	
+	@Test
+	public void testChunkedResources_Construct() throws Exception {
+		Chunk<SampleBean> chunk = new ChunkImpl<>(beans, "token", new ChunkRequest(ELEMENTS));
+		assertWithinBudget("chunked.construct", () -> new ChunkedResources<>("beans", chunk));
+	}
+	
+	@Test
+	public void testChunkedResources_Serialize() throws Exception {
+		Chunk<SampleBean> chunk = new ChunkImpl<>(beans, "token", new ChunkRequest(ELEMENTS));
+		ChunkedResources<SampleBean> resources = new ChunkedResources<>("beans", chunk);
+		assertWithinBudget("chunked.serialize", () -> OM.writeValueAsString(resources));
+	}
+	
+	private Resource<SampleBean> newResource() {
+		return new Resource<>(beans.get(0))
+			.addLink(Link.REL_SELF, new Link("http://example.com/beans/0"))
+			.addLink(Link.REL_NEXT, new Link("http://example.com/beans/1"));
+	}
+	
+	private void assertWithinBudget(String name, Callable<?> operation) throws Exception {
+		long budget = meter.budgetOf(name);
+		long actual = meter.bytesPerOperation(operation);
+		log.info("{}: {} bytes/op (budget {})", name, actual, budget);
+		assertThat(name + " allocated bytes per operation", actual, lessThanOrEqualTo(budget));
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures heap bytes allocated per operation on the current thread, using {@link ThreadMXBean}.
+ */
+final class AllocationMeter {
+	
+	private static final String BUDGETS_RESOURCE = "/allocation-budgets.properties";
+	
+	private static final int WARM_UP_ITERATIONS = 20_000;
+	
+	private static final int ITERATIONS = 10_000;
+	
+	private final ThreadMXBean threadMxBean;
+	
+	private final Properties budgets = new Properties();
+	
+	@SuppressWarnings("unused")
+	private Object sink;
+	
+	
+	AllocationMeter() throws IOException {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		this.threadMxBean = bean instanceof ThreadMXBean ? (ThreadMXBean) bean : null;
+		try (InputStream in = AllocationMeter.class.getResourceAsStream(BUDGETS_RESOURCE)) {
+			if (in == null) {
+				throw new IllegalStateException(BUDGETS_RESOURCE + " is not found");
+			}
+			budgets.load(in);
+		}
+	}
+	
+	/**
+	 * Returns whether the JVM supports measuring thread allocated bytes.
+	 *
+	 * @return {@code true} if supported, otherwise {@code false}
+	 */
+	boolean isSupported() {
+		return threadMxBean != null
+				&& threadMxBean.isThreadAllocatedMemorySupported()
+				&& threadMxBean.isThreadAllocatedMemoryEnabled();
+	}
+	
+	/**
+	 * Returns the configured budget of the operation.
+	 *
+	 * @param name operation name
+	 * @return the maximum bytes allowed to be allocated per operation
+	 */
+	long budgetOf(String name) {
+		String budget = budgets.getProperty(name);
+		if (budget == null) {
+			throw new IllegalArgumentException("No allocation budget is configured for " + name);
+		}
+		return Long.parseLong(budget.trim());
+	}
+	
+	/**
+	 * Measures average bytes allocated per invocation of the operation, after warming up.
+	 *
+	 * @param operation operation to measure
+	 * @return average allocated bytes per operation
+	 * @throws Exception if the operation throws
+	 */
+	long bytesPerOperation(Callable<?> operation) throws Exception {
+		for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+			sink = operation.call();
+		}
+		long threadId = Thread.currentThread().getId();
+		long before = threadMxBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ITERATIONS; i++) {
+			sink = operation.call();
+		}
+		long after = threadMxBean.getThreadAllocatedBytes(threadId);
+		return (after - before) / ITERATIONS;
+	}
+}
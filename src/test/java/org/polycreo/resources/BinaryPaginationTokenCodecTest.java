@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import org.polycreo.chunkrequests.ChunkRequest;
+import org.polycreo.chunkrequests.SimplePaginationTokenEncoder;
+import org.polycreo.chunks.ChunkImpl;
+
+/**
+ * Test for {@link BinaryPaginationTokenCodec}.
+ */
+public class BinaryPaginationTokenCodecTest {
+	
+	private static final byte[] SECRET = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	
+	
+	@Test
+	public void testRoundTrip() {
+		// setup
+		BinaryPaginationTokenCodec sut = new BinaryPaginationTokenCodec();
+		Object[][] cases = {
+			{ 0, -1 },
+			{ Integer.MIN_VALUE, Integer.MAX_VALUE },
+			{ Long.MIN_VALUE, Long.MAX_VALUE },
+			{ 1234567890123L, null },
+			{ null, null },
+			{ "", "caf\u00e9 \u3042 \ud83d\ude00" },
+			{ 42, "mixed" }
+		};
+		for (Object[] c : cases) {
+			PaginationKeys keys = new PaginationKeys(c[0], c[1]);
+			// exercise
+			String token = sut.encode(keys);
+			PaginationKeys actual = sut.decode(token);
+			// verify
+			assertThat(token, matchesPattern("[A-Za-z0-9_-]+"));
+			assertThat(actual, is(keys));
+		}
+	}
+	
+	@Test
+	public void testEncode_ShorterThanSimpleEncoder() {
+		// setup
+		BinaryPaginationTokenCodec sut = new BinaryPaginationTokenCodec(SECRET);
+		// exercise
+		String actual = sut.encode(new PaginationKeys(1001L, 1020L));
+		// verify
+		assertThat(actual.length(), is(lessThan(new SimplePaginationTokenEncoder().encode(1001L, 1020L).length())));
+	}
+	
+	@Test
+	public void testDecode_Signed() {
+		// setup
+		BinaryPaginationTokenCodec sut = new BinaryPaginationTokenCodec(SECRET);
+		// exercise
+		PaginationKeys actual = sut.decode(sut.encode(new PaginationKeys("aaa", 3)));
+		// verify
+		assertThat(actual, is(new PaginationKeys("aaa", 3)));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecode_Tampered() {
+		// setup
+		BinaryPaginationTokenCodec sut = new BinaryPaginationTokenCodec(SECRET);
+		char[] token = sut.encode(new PaginationKeys(100, 200)).toCharArray();
+		token[2] = token[2] == 'A' ? 'B' : 'A';
+		// exercise
+		sut.decode(new String(token));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecode_OtherSecret() {
+		// setup
+		String token = new BinaryPaginationTokenCodec("another secret".getBytes(StandardCharsets.US_ASCII))
+			.encode(new PaginationKeys(100, 200));
+		// exercise
+		new BinaryPaginationTokenCodec(SECRET).decode(token);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecode_Truncated() {
+		// setup
+		BinaryPaginationTokenCodec sut = new BinaryPaginationTokenCodec();
+		String token = sut.encode(new PaginationKeys("abcdefgh", null));
+		// exercise
+		sut.decode(token.substring(0, 6));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testEncode_UnsupportedKey() {
+		// exercise
+		new BinaryPaginationTokenCodec().encode(new PaginationKeys(1.5d, null));
+	}
+	
+	@Test
+	public void testChunkedResources() {
+		// setup
+		BinaryPaginationTokenCodec sut = new BinaryPaginationTokenCodec(SECRET);
+		ChunkImpl<String> chunk = new ChunkImpl<>(Arrays.asList("aaa", "bbb", "ccc"), null, new ChunkRequest(3));
+		// exercise
+		ChunkedResources<String> actual = new ChunkedResources<>("strings", chunk, s -> s.substring(0, 1), sut);
+		// verify
+		assertThat(actual.getValue().getSize(), is(3L));
+		assertThat(sut.decode(actual.getValue().getPaginationToken()), is(new PaginationKeys("a", "c")));
+	}
+	
+	@Test
+	public void testChunkedResources_Empty() {
+		// setup
+		ChunkImpl<String> chunk = new ChunkImpl<>(Collections.emptyList(), null, new ChunkRequest(3));
+		// exercise
+		ChunkedResources<String> actual = new ChunkedResources<>("strings", chunk, s -> s,
+				new BinaryPaginationTokenCodec());
+		// verify
+		assertThat(actual.getValue().getPaginationToken(), is(nullValue()));
+	}
+}
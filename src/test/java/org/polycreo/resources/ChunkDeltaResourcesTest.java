@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static com.jayway.jsonassert.JsonAssert.with;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.polycreo.resources.ChunkedResources.ChunkMetadata;
+import org.polycreo.resources.ChunkedResourcesTest.SampleBean;
+
+/**
+ * Test for {@link ChunkDeltaResources} and {@link ChunkDelta}.
+ */
+@Slf4j
+public class ChunkDeltaResourcesTest {
+	
+	private static final ObjectMapper OM = new ObjectMapper();
+	
+	private static final List<SampleBean> PREVIOUS = Arrays.asList(
+			new SampleBean("aaa", "1"),
+			new SampleBean("bbb", "1"),
+			new SampleBean("ccc", "1"));
+	
+	private static final List<SampleBean> CURRENT = Arrays.asList(
+			new SampleBean("aaa", "1"),
+			new SampleBean("ccc", "2"),
+			new SampleBean("ddd", "1"));
+	
+	
+	@Test
+	public void testBetween() {
+		// exercise
+		ChunkDelta<SampleBean, String> actual = ChunkDelta.between(PREVIOUS, CURRENT, SampleBean::getFoo);
+		// verify
+		assertThat(actual.getAdded(), contains(new SampleBean("ddd", "1")));
+		assertThat(actual.getChanged(), contains(new SampleBean("ccc", "2")));
+		assertThat(actual.getRemoved(), contains("bbb"));
+		assertThat(actual.applyTo(PREVIOUS, SampleBean::getFoo), is(CURRENT));
+	}
+	
+	@Test
+	public void testBetween_Same() {
+		// exercise
+		ChunkDelta<SampleBean, String> actual = ChunkDelta.between(PREVIOUS, PREVIOUS, SampleBean::getFoo);
+		// verify
+		assertThat(actual.isEmpty(), is(true));
+		assertThat(actual.applyTo(PREVIOUS, SampleBean::getFoo), is(PREVIOUS));
+	}
+	
+	@Test
+	public void testSerialize() throws Exception {
+		// setup
+		ChunkDeltaResources<SampleBean, String> resources = new ChunkDeltaResources<>(
+				ChunkDelta.between(PREVIOUS, CURRENT, SampleBean::getFoo),
+				new ChunkMetadata(CURRENT.size(), null, "w2"));
+		// exercise
+		String actual = OM.writeValueAsString(resources);
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$.chunk.size", is(3))
+			.assertThat("$.chunk.watermark", is("w2"))
+			.assertNotDefined("$.chunk.pagination_token")
+			.assertThat("$._delta.added[0].foo", is("ddd"))
+			.assertThat("$._delta.changed[0].foo", is("ccc"))
+			.assertThat("$._delta.changed[0].bar", is("2"))
+			.assertThat("$._delta.removed[0]", is("bbb"))
+			.assertNotDefined("$._embedded");
+	}
+	
+	@Test
+	public void testSerialize_Empty() throws Exception {
+		// setup
+		ChunkDeltaResources<SampleBean, String> resources = new ChunkDeltaResources<>(
+				new ChunkDelta<>(Collections.emptyList(), Collections.emptyList(), Collections.emptyList()),
+				new ChunkMetadata(PREVIOUS.size(), null, "w1"));
+		// exercise
+		String actual = OM.writeValueAsString(resources);
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$.chunk.watermark", is("w1"))
+			.assertNotDefined("$._delta.added")
+			.assertNotDefined("$._delta.changed")
+			.assertNotDefined("$._delta.removed");
+	}
+	
+	@Test
+	public void testDeserialize_Apply() throws Exception {
+		// setup
+		ChunkDeltaResources<SampleBean, String> expected = new ChunkDeltaResources<>(
+				ChunkDelta.between(PREVIOUS, CURRENT, SampleBean::getFoo),
+				new ChunkMetadata(CURRENT.size(), null, "w2"));
+		String json = OM.writeValueAsString(expected);
+		// exercise
+		ChunkDeltaResources<SampleBean, String> actual = OM.readValue(json,
+				new TypeReference<ChunkDeltaResources<SampleBean, String>>() {
+				});
+		// verify
+		assertThat(actual, is(expected));
+		assertThat(actual.getValue().getWatermark(), is("w2"));
+		assertThat(actual.getDelta().applyTo(PREVIOUS, SampleBean::getFoo), is(CURRENT));
+	}
+}
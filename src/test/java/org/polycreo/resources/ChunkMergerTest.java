@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import org.polycreo.chunkrequests.ChunkRequest;
+import org.polycreo.chunks.ChunkImpl;
+import org.polycreo.resources.ChunkMerger.ChunkSource;
+
+/**
+ * Test for {@link ChunkMerger}.
+ */
+public class ChunkMergerTest {
+	
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(3);
+	
+	
+	@AfterClass
+	public static void tearDown() {
+		EXECUTOR.shutdown();
+	}
+	
+	@Test
+	public void testMerge_Sorted() {
+		// setup
+		ChunkMerger<String> sut = new ChunkMerger<>(Arrays.asList(
+				source("a1", "c1", "e1"),
+				source("b1", "d1"),
+				source("f1")), Comparator.naturalOrder(), s -> s, EXECUTOR);
+		// exercise
+		ChunkedResources<String> actual = sut.merge("items", null, 4);
+		// verify
+		assertThat(contentOf(actual), contains("a1", "b1", "c1", "d1"));
+		assertThat(actual.getValue().getSize(), is(4L));
+		assertThat(actual.getValue().getPaginationToken(), is(notNullValue()));
+	}
+	
+	@Test
+	public void testMerge_ResumeAllSources() {
+		// setup
+		List<String> shard0 = Arrays.asList("a", "d", "g", "j", "m");
+		List<String> shard1 = Arrays.asList("b", "e", "h");
+		List<String> shard2 = Arrays.asList("c", "f", "i", "k", "l", "n", "o");
+		ChunkMerger<String> sut = new ChunkMerger<>(Arrays.asList(
+				source(shard0.toArray(new String[0])),
+				source(shard1.toArray(new String[0])),
+				source(shard2.toArray(new String[0]))), Comparator.naturalOrder(), s -> s, EXECUTOR);
+		// exercise
+		List<String> actual = new ArrayList<>();
+		String token = null;
+		int chunks = 0;
+		do {
+			ChunkedResources<String> resources = sut.merge("items", token, 4);
+			actual.addAll(contentOf(resources));
+			token = resources.getValue().getPaginationToken();
+			chunks++;
+		} while (token != null);
+		// verify
+		List<String> expected = new ArrayList<>(shard0);
+		expected.addAll(shard1);
+		expected.addAll(shard2);
+		assertThat(actual, is(expected.stream().sorted().collect(Collectors.toList())));
+		assertThat(chunks, is(4));
+	}
+	
+	@Test
+	public void testMerge_TieBrokenBySourceIndex() {
+		// setup
+		ChunkMerger<String> sut = new ChunkMerger<>(Arrays.asList(
+				source("a0", "b0"),
+				source("a1", "b1")), Comparator.comparing(s -> s.charAt(0)), s -> s, EXECUTOR);
+		// exercise
+		ChunkedResources<String> actual = sut.merge("items", null, 10);
+		// verify
+		assertThat(contentOf(actual), contains("a0", "a1", "b0", "b1"));
+		assertThat(actual.getValue().getPaginationToken(), is(nullValue()));
+	}
+	
+	@Test
+	public void testMerge_ExhaustedSourceIsNotFetched() {
+		// setup
+		AtomicInteger fetches = new AtomicInteger();
+		ChunkSource<String> counting = (position, size) -> {
+			fetches.incrementAndGet();
+			return source("a").fetch(position, size);
+		};
+		ChunkMerger<String> sut = new ChunkMerger<>(Arrays.asList(counting, source("b", "c", "d", "e")),
+				Comparator.naturalOrder(), s -> s, EXECUTOR);
+		String token = sut.merge("items", null, 2).getValue().getPaginationToken();
+		// exercise
+		ChunkedResources<String> actual = sut.merge("items", token, 2);
+		// verify
+		assertThat(contentOf(actual), contains("c", "d"));
+		assertThat(fetches.get(), is(1));
+	}
+	
+	@Test
+	public void testMerge_CappedSource() {
+		// setup
+		ChunkMerger<String> sut = new ChunkMerger<>(Arrays.asList(
+				cappedSource(2, "a", "c", "e", "g", "i"),
+				source("b", "d")), Comparator.naturalOrder(), s -> s, EXECUTOR);
+		// exercise
+		List<String> actual = new ArrayList<>();
+		String token = null;
+		do {
+			ChunkedResources<String> resources = sut.merge("items", token, 4);
+			actual.addAll(contentOf(resources));
+			token = resources.getValue().getPaginationToken();
+		} while (token != null);
+		// verify
+		assertThat(actual, contains("a", "b", "c", "d", "e", "g", "i"));
+	}
+	
+	@Test
+	public void testMerge_CappedSourcePrecedesOthers() {
+		// setup
+		ChunkMerger<String> sut = new ChunkMerger<>(Arrays.asList(
+				cappedSource(1, "a", "c", "e"),
+				source("b", "d")), Comparator.naturalOrder(), s -> s, EXECUTOR);
+		// exercise
+		List<String> actual = new ArrayList<>();
+		String token = null;
+		do {
+			ChunkedResources<String> resources = sut.merge("items", token, 4);
+			actual.addAll(contentOf(resources));
+			token = resources.getValue().getPaginationToken();
+		} while (token != null);
+		// verify
+		assertThat(actual, contains("a", "b", "c", "d", "e"));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testMerge_InvalidToken() {
+		// setup
+		ChunkMerger<String> sut = new ChunkMerger<>(Arrays.asList(source("a"), source("b")),
+				Comparator.naturalOrder(), s -> s, EXECUTOR);
+		// exercise
+		sut.merge("items", "AAEB", 2);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static List<String> contentOf(ChunkedResources<String> resources) {
+		return (List<String>) resources.getEmbeddedResources().get("items");
+	}
+	
+	private static ChunkSource<String> source(String... elements) {
+		return cappedSource(Integer.MAX_VALUE, elements);
+	}
+	
+	private static ChunkSource<String> cappedSource(int cap, String... elements) {
+		return (position, size) -> {
+			List<String> following = Arrays.stream(elements)
+				.filter(e -> position == null || e.compareTo(position) > 0)
+				.collect(Collectors.toList());
+			List<String> content = following.subList(0, Math.min(following.size(), Math.min(size, cap)));
+			String token = content.size() < following.size() ? content.get(content.size() - 1) : null;
+			return new ChunkImpl<>(content, token, new ChunkRequest(size));
+		};
+	}
+}
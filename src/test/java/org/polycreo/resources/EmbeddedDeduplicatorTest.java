@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static com.jayway.jsonassert.JsonAssert.with;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Arrays;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.polycreo.resources.ResourceTest.SampleBean;
+
+/**
+ * Test for {@link EmbeddedDeduplicator}.
+ */
+@Slf4j
+public class EmbeddedDeduplicatorTest {
+	
+	private static final ObjectMapper OM = new ObjectMapper();
+	
+	
+	@Test
+	public void testSerialize_Identity() throws Exception {
+		// setup
+		SampleBean author = new SampleBean("author", "1");
+		PagedResources<Resource<SampleBean>> posts = new PagedResources<>("posts", Arrays.asList(
+				new Resource<>(new SampleBean("post", "1")).embedResource("author", author),
+				new Resource<>(new SampleBean("post", "2")).embedResource("author", author),
+				new Resource<>(new SampleBean("post", "3")).embedResource("author", new SampleBean("author", "2"))));
+		// exercise
+		String actual = OM.writeValueAsString(new EmbeddedDeduplicator().deduplicate(posts));
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$.page.size", is(3))
+			.assertThat("$._embedded.posts[0].foo", is("post"))
+			.assertThat("$._embedded.posts[0]._embedded.author._ref", is("0"))
+			.assertThat("$._embedded.posts[1]._embedded.author._ref", is("0"))
+			.assertThat("$._embedded.posts[2]._embedded.author.bar", is("2"))
+			.assertThat("$._shared.0.foo", is("author"))
+			.assertThat("$._shared.0.bar", is("1"))
+			.assertNotDefined("$._shared.1");
+	}
+	
+	@Test
+	public void testSerialize_Key() throws Exception {
+		// setup
+		PagedResources<Resource<SampleBean>> posts = new PagedResources<>("posts", Arrays.asList(
+				new Resource<>(new SampleBean("post", "1")).embedResource("author", new SampleBean("author", "1")),
+				new Resource<>(new SampleBean("post", "2")).embedResource("author", new SampleBean("author", "1"))));
+		EmbeddedDeduplicator sut = new EmbeddedDeduplicator(
+				embedded -> embedded instanceof SampleBean ? ((SampleBean) embedded).getBar() : null);
+		// exercise
+		String actual = OM.writeValueAsString(sut.deduplicate(posts));
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$._embedded.posts[0]._embedded.author._ref", is("0"))
+			.assertThat("$._embedded.posts[1]._embedded.author._ref", is("0"))
+			.assertThat("$._shared.0.foo", is("author"));
+	}
+	
+	@Test
+	public void testSerialize_NoDuplicates() throws Exception {
+		// setup
+		Resource<SampleBean> resource = new Resource<>(new SampleBean("post", "1"))
+			.embedResource("author", new SampleBean("author", "1"));
+		// exercise
+		String actual = OM.writeValueAsString(new EmbeddedDeduplicator().deduplicate(resource));
+		// verify
+		assertThat(actual, is(OM.writeValueAsString(resource)));
+	}
+	
+	@Test
+	public void testSerialize_Scalars() throws Exception {
+		// setup
+		PagedResources<Resource<SampleBean>> posts = new PagedResources<>("posts", Arrays.asList(
+				new Resource<>(new SampleBean("post", "1"))
+					.embedResource("published", Boolean.TRUE)
+					.embedResource("comments", 3),
+				new Resource<>(new SampleBean("post", "2"))
+					.embedResource("published", Boolean.TRUE)
+					.embedResource("comments", 3)));
+		// exercise
+		String actual = OM.writeValueAsString(new EmbeddedDeduplicator().deduplicate(posts));
+		// verify
+		assertThat(actual, is(OM.writeValueAsString(posts)));
+	}
+	
+	@Test
+	public void testResolve() throws Exception {
+		// setup
+		Resource<SampleBean> author = new Resource<>(new SampleBean("author", "1"))
+			.addLink(Link.REL_SELF, new Link("http://example.com/authors/1"));
+		PagedResources<Resource<SampleBean>> posts = new PagedResources<>("posts", Arrays.asList(
+				new Resource<>(new SampleBean("post", "1")).embedResource("author", author),
+				new Resource<>(new SampleBean("post", "2")).embedResource("author", author)));
+		String json = OM.writeValueAsString(new EmbeddedDeduplicator().deduplicate(posts));
+		// exercise
+		JsonNode actual = EmbeddedDeduplicator.resolve(OM.readTree(json));
+		// verify
+		assertThat(actual, is(OM.readTree(OM.writeValueAsString(posts))));
+		assertThat(actual.at("/_embedded/posts/0/_embedded/author"),
+				is(sameInstance(actual.at("/_embedded/posts/1/_embedded/author"))));
+		Resource<SampleBean> post = OM.readerFor(new TypeReference<Resource<SampleBean>>() {
+		}).readValue(actual.at("/_embedded/posts/0"));
+		assertThat(post.getValue(), is(new SampleBean("post", "1")));
+	}
+}
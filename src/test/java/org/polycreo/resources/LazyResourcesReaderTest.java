@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.polycreo.resources.ChunkedResources.ChunkMetadata;
+import org.polycreo.resources.PagedResources.PageMetadata;
+import org.polycreo.resources.ResourceTest.SampleBean;
+
+/**
+ * Test for {@link LazyResourcesReader}.
+ */
+public class LazyResourcesReaderTest {
+	
+	private static final ObjectMapper OM = new ObjectMapper()
+		.configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
+	
+	
+	@Test
+	public void testReadPaged() throws Exception {
+		// setup
+		PagedResources<Resource<SampleBean>> expected = new PagedResources<>("beans", Arrays.asList(
+				new Resource<>(new SampleBean("aaa", "bbb"))
+					.addLink(Link.REL_SELF, new Link("http://example.com/beans/1")),
+				new Resource<>(new SampleBean("ccc", "ddd"))), new PageMetadata(2, 0, 10));
+		expected.addLink(Link.REL_NEXT, new Link("http://example.com/beans?page=1"));
+		byte[] content = OM.writeValueAsBytes(expected);
+		LazyResourcesReader sut = new LazyResourcesReader(OM.reader());
+		// exercise
+		PagedResources<Resource<SampleBean>> actual = sut.readPaged(content,
+				new TypeReference<Resource<SampleBean>>() {
+				});
+		// verify
+		assertThat(actual, is(expected));
+		assertThat(OM.writeValueAsString(actual), is(OM.writeValueAsString(expected)));
+	}
+	
+	@Test
+	public void testReadPaged_Scalars() throws Exception {
+		// setup
+		String json = "{ 'page': { 'size': 5 }, '_embedded': { 'values': ["
+				+ " 'a\\\"b', 12.5, true, null, -3"
+				+ " ] }, 'unknown': [ 1, { 'x': 2 } ] }";
+		LazyResourcesReader sut = new LazyResourcesReader(OM.reader());
+		// exercise
+		PagedResources<Object> actual = sut.readPaged(json.getBytes(StandardCharsets.UTF_8),
+				new TypeReference<Object>() {
+				});
+		// verify
+		assertThat(contentOf(actual, "values"), contains("a\"b", 12.5, true, null, -3));
+	}
+	
+	@Test
+	public void testReadPaged_BindOnAccess() throws Exception {
+		// setup
+		String json = "{ 'page': { 'size': 2 }, '_embedded': { 'beans': ["
+				+ " { 'foo': 'aaa', 'bar': 'bbb' }, [ 'not', 'a', 'bean' ]"
+				+ " ] } }";
+		LazyResourcesReader sut = new LazyResourcesReader(OM.reader());
+		// exercise
+		PagedResources<SampleBean> actual = sut.readPaged(json.getBytes(StandardCharsets.UTF_8),
+				new TypeReference<SampleBean>() {
+				});
+		// verify
+		List<SampleBean> beans = contentOf(actual, "beans");
+		assertThat(beans, hasSize(2));
+		assertThat(beans.get(0), is(new SampleBean("aaa", "bbb")));
+		try {
+			beans.get(1);
+			throw new AssertionError("expected UncheckedIOException");
+		} catch (UncheckedIOException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testReadPaged_NoEmbedded() throws Exception {
+		// setup
+		String json = "{ 'page': { 'size': 20, 'total_elements': 0 } }";
+		LazyResourcesReader sut = new LazyResourcesReader(OM.reader());
+		// exercise
+		PagedResources<SampleBean> actual = sut.readPaged(json.getBytes(StandardCharsets.UTF_8),
+				new TypeReference<SampleBean>() {
+				});
+		// verify
+		assertThat(actual.getValue().getSize(), is(20L));
+		assertThat(actual.getEmbeddedResources(), is(nullValue()));
+	}
+	
+	@Test
+	public void testReadChunked_Compaction() throws Exception {
+		// setup
+		LinkCompaction compaction = new LinkCompaction()
+			.relativeTo("http://example.com/api")
+			.curie("ex", "http://docs.example.com/rels/");
+		ChunkedResources<Resource<SampleBean>> expected = new ChunkedResources<>("beans", Arrays.asList(
+				new Resource<>(new SampleBean("aaa", "bbb"))
+					.addLink("http://docs.example.com/rels/widgets", new Link("http://example.com/api/beans/1/w"))),
+				new ChunkMetadata(1, "token"));
+		expected.addLink(Link.REL_SELF, new Link("http://example.com/api/beans"));
+		byte[] content = OM.writer().withAttribute(LinkCompaction.class, compaction).writeValueAsBytes(expected);
+		LazyResourcesReader sut = new LazyResourcesReader(OM.reader().withAttribute(LinkCompaction.class, compaction));
+		// exercise
+		ChunkedResources<Resource<SampleBean>> actual = sut.readChunked(content,
+				new TypeReference<Resource<SampleBean>>() {
+				});
+		// verify
+		assertThat(actual, is(expected));
+	}
+	
+	@Test
+	public void testReadPaged_RootCuries() throws Exception {
+		// setup
+		String json = "{ 'page': { 'size': 1 }, '_links': {"
+				+ " 'curies': [ { 'name': 'ex', 'href': 'http://docs.example.com/rels/{rel}', 'templated': true } ],"
+				+ " 'ex:widgets': { 'href': 'http://example.com/widgets' } }, '_embedded': { 'beans': ["
+				+ " { 'foo': 'aaa', 'bar': 'bbb', '_links': { 'ex:widgets': { 'href': 'http://example.com/w' } } }"
+				+ " ] } }";
+		LazyResourcesReader sut = new LazyResourcesReader(OM.reader());
+		// exercise
+		PagedResources<Resource<SampleBean>> actual = sut.readPaged(json.getBytes(StandardCharsets.UTF_8),
+				new TypeReference<Resource<SampleBean>>() {
+				});
+		// verify
+		PagedResources<Resource<SampleBean>> expected = OM.readValue(json,
+				new TypeReference<PagedResources<Resource<SampleBean>>>() {
+				});
+		assertThat(actual.getLink("http://docs.example.com/rels/widgets"), is(new Link("http://example.com/widgets")));
+		List<Resource<SampleBean>> beans = contentOf(actual, "beans");
+		assertThat(beans.get(0).getLink("http://docs.example.com/rels/widgets"), is(new Link("http://example.com/w")));
+		assertThat(actual, is(expected));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T> List<T> contentOf(Resource<?> resources, String key) {
+		return (List<T>) (Collection<T>) resources.getEmbeddedResources().get(key);
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static com.jayway.jsonassert.JsonAssert.with;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.polycreo.resources.ResourceTest.SampleBean;
+
+/**
+ * Test for {@link LinkCompaction}.
+ */
+@Slf4j
+public class LinkCompactionTest {
+	
+	private static final ObjectMapper OM = new ObjectMapper()
+		.configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
+	
+	private static final String REL_WIDGETS = "http://docs.example.com/rels/widgets";
+	
+	private static final LinkCompaction COMPACTION = new LinkCompaction()
+		.relativeTo("http://example.com/api")
+		.curie("ex", "http://docs.example.com/rels/");
+	
+	
+	@Test
+	public void testCompactHref() {
+		assertThat(COMPACTION.compactHref("http://example.com/api/beans/1"), is("beans/1"));
+		assertThat(COMPACTION.compactHref("http://example.com/api/"), is(""));
+		assertThat(COMPACTION.compactHref("http://example.com/api//beans"), is("http://example.com/api//beans"));
+		assertThat(COMPACTION.compactHref("http://example.com/api/x:y"), is("http://example.com/api/x:y"));
+		assertThat(COMPACTION.compactHref("http://example.com/other"), is("http://example.com/other"));
+	}
+	
+	@Test
+	public void testExpandHref() {
+		assertThat(COMPACTION.expandHref("beans/1"), is("http://example.com/api/beans/1"));
+		assertThat(COMPACTION.expandHref("/beans/1"), is("/beans/1"));
+		assertThat(COMPACTION.expandHref("http://example.com/other"), is("http://example.com/other"));
+	}
+	
+	@Test
+	public void testSerialize_WithoutCompaction() throws Exception {
+		// setup
+		Resource<String> resource = new Resource<>("foo")
+			.addLink(Link.REL_SELF, new Link("http://example.com/api/foo"))
+			.addLink(REL_WIDGETS, new Link("http://example.com/api/foo/widgets"));
+		// exercise
+		String actual = OM.writeValueAsString(resource);
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$._links.self.href", is("http://example.com/api/foo"))
+			.assertThat("$._links['" + REL_WIDGETS + "'].href", is("http://example.com/api/foo/widgets"))
+			.assertNotDefined("$._links.curies");
+	}
+	
+	@Test
+	public void testSerialize_WithCompaction() throws Exception {
+		// setup
+		Resource<String> resource = new Resource<>("foo")
+			.addLink(Link.REL_SELF, new Link("http://example.com/api/foo"))
+			.addLink(REL_WIDGETS, new Link("http://example.com/api/foo/widgets"));
+		// exercise
+		String actual = OM.writer().withAttribute(LinkCompaction.class, COMPACTION).writeValueAsString(resource);
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$._links.self.href", is("foo"))
+			.assertThat("$._links['ex:widgets'].href", is("foo/widgets"))
+			.assertThat("$._links.curies", hasSize(1))
+			.assertThat("$._links.curies[0].name", is("ex"))
+			.assertThat("$._links.curies[0].href", is("http://docs.example.com/rels/{rel}"))
+			.assertThat("$._links.curies[0].templated", is(true));
+	}
+	
+	@Test
+	public void testSerialize_CuriesDeclaredOnce() throws Exception {
+		// setup
+		PagedResources<Resource<SampleBean>> resources = new PagedResources<>("beans", Arrays.asList(
+				new Resource<>(new SampleBean("aaa", "bbb"))
+					.addLink(REL_WIDGETS, new Link("http://example.com/api/beans/1/widgets")),
+				new Resource<>(new SampleBean("ccc", "ddd"))
+					.addLink(REL_WIDGETS, new Link("http://example.com/api/beans/2/widgets"))));
+		resources.addLink(Link.REL_SELF, new Link("http://example.com/api/beans"));
+		resources.addLink(REL_WIDGETS, new Link("http://example.com/api/widgets"));
+		// exercise
+		String actual = OM.writer().withAttribute(LinkCompaction.class, COMPACTION).writeValueAsString(resources);
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$._links.curies", hasSize(1))
+			.assertThat("$._links['ex:widgets'].href", is("widgets"))
+			.assertThat("$._embedded.beans[0]._links['ex:widgets'].href", is("beans/1/widgets"))
+			.assertNotDefined("$._embedded.beans[0]._links.curies")
+			.assertThat("$._embedded.beans[1]._links['ex:widgets'].href", is("beans/2/widgets"))
+			.assertNotDefined("$._embedded.beans[1]._links.curies");
+	}
+	
+	@Test
+	public void testSerialize_CuriesDeclaredInRoot() throws Exception {
+		// setup
+		PagedResources<Resource<SampleBean>> resources = new PagedResources<>("beans", Arrays.asList(
+				new Resource<>(new SampleBean("aaa", "bbb")),
+				new Resource<>(new SampleBean("ccc", "ddd"))
+					.addLink(REL_WIDGETS, new Link("http://example.com/api/beans/2/widgets"))));
+		// exercise
+		String actual = OM.writer().withAttribute(LinkCompaction.class, COMPACTION).writeValueAsString(resources);
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$._links.curies", hasSize(1))
+			.assertThat("$._links.curies[0].name", is("ex"))
+			.assertNotDefined("$._embedded.beans[0]._links")
+			.assertThat("$._embedded.beans[1]._links['ex:widgets'].href", is("beans/2/widgets"))
+			.assertNotDefined("$._embedded.beans[1]._links.curies");
+	}
+	
+	@Test
+	public void testSerialize_CuriesDeclaredInRoot_NestedValue() throws Exception {
+		// setup
+		SampleHolder holder = new SampleHolder(new Resource<>(new SampleBean("aaa", "bbb"))
+			.addLink(REL_WIDGETS, new Link("http://example.com/api/beans/1/widgets")));
+		Resource<SampleHolder> resource = new Resource<>(holder)
+			.addLink(Link.REL_SELF, new Link("http://example.com/api/holders/1"));
+		// exercise
+		String actual = OM.writer().withAttribute(LinkCompaction.class, COMPACTION).writeValueAsString(resource);
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$._links.curies", hasSize(1))
+			.assertThat("$._links.self.href", is("holders/1"))
+			.assertThat("$.bean._links['ex:widgets'].href", is("beans/1/widgets"))
+			.assertNotDefined("$.bean._links.curies");
+	}
+	
+	@Test
+	public void testSerialize_CuriesDeclaredInRoot_Array() throws Exception {
+		// setup
+		List<Resource<SampleBean>> resources = Arrays.asList(
+				new Resource<>(new SampleBean("aaa", "bbb")),
+				new Resource<>(new SampleBean("ccc", "ddd"))
+					.addLink(REL_WIDGETS, new Link("http://example.com/api/beans/2/widgets")));
+		// exercise
+		String actual = OM.writer().withAttribute(LinkCompaction.class, COMPACTION).writeValueAsString(resources);
+		// verify
+		log.info(actual);
+		with(actual)
+			.assertThat("$[0]._links.curies", hasSize(1))
+			.assertThat("$[1]._links.curies", hasSize(1))
+			.assertThat("$[1]._links['ex:widgets'].href", is("beans/2/widgets"));
+	}
+	
+	@Test
+	public void testDeserialize_WithCompaction() throws Exception {
+		// setup
+		Resource<SampleBean> expected = new Resource<>(new SampleBean("aaa", "bbb"))
+			.addLink(Link.REL_SELF, new Link("http://example.com/api/beans/1"))
+			.addLink(REL_WIDGETS, new Link("http://example.com/api/beans/1/widgets"));
+		String json = OM.writer().withAttribute(LinkCompaction.class, COMPACTION).writeValueAsString(expected);
+		// exercise
+		Resource<SampleBean> actual = OM.readerFor(new TypeReference<Resource<SampleBean>>() {
+		}).withAttribute(LinkCompaction.class, COMPACTION).readValue(json);
+		// verify
+		assertThat(actual, is(expected));
+	}
+	
+	@Test
+	public void testDeserialize_CuriesWithoutCompaction() throws Exception {
+		// setup
+		String json = "{"
+				+ "  'foo': 'aaa',"
+				+ "  'bar': 'bbb',"
+				+ "  '_links': {"
+				+ "    'self': { 'href': 'beans/1' },"
+				+ "    'ex:widgets': { 'href': 'http://example.com/api/beans/1/widgets' },"
+				+ "    'curies': [{ 'name': 'ex', 'href': 'http://docs.example.com/rels/{rel}', 'templated': true }]"
+				+ "  }"
+				+ "}";
+		// exercise
+		Resource<SampleBean> actual = OM.readValue(json, new TypeReference<Resource<SampleBean>>() {
+		});
+		// verify
+		assertThat(actual.getLinks().size(), is(2));
+		assertThat(actual.getLink(Link.REL_SELF), is(new Link("beans/1")));
+		assertThat(actual.getLink(REL_WIDGETS), is(new Link("http://example.com/api/beans/1/widgets")));
+	}
+	
+	
+	@Data
+	@AllArgsConstructor
+	@SuppressWarnings("javadoc")
+	public static class SampleHolder {
+		
+		private Resource<SampleBean> bean;
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static com.jayway.jsonassert.JsonAssert.with;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Test for {@link LinkRelations}, indexed link storage and {@link ImmutableLink}.
+ */
+@Slf4j
+public class LinkRelationsTest {
+	
+	private static final ObjectMapper OM = new ObjectMapper();
+	
+	private static final Link SELF = new ImmutableLink("http://example.com/\"quoted\"/back\\slash");
+	
+	
+	@Test
+	public void testRegister() {
+		// exercise
+		int index = LinkRelations.register("http://example.com/rels/registered");
+		// verify
+		assertThat(LinkRelations.register("http://example.com/rels/registered"), is(index));
+		assertThat(LinkRelations.indexOf("http://example.com/rels/registered"), is(index));
+		assertThat(LinkRelations.relOf(index), is("http://example.com/rels/registered"));
+		assertThat(LinkRelations.indexOf(Link.REL_NEXT), is(LinkRelations.NEXT));
+		assertThat(LinkRelations.indexOf("unregistered"), is(-1));
+	}
+	
+	@Test
+	public void testLinks() {
+		// setup
+		Resource<String> resource = new Resource<>("foo")
+			.addLink(LinkRelations.SELF, SELF)
+			.addLink(Link.REL_NEXT, new Link("http://example.com/next"))
+			.addLink("unregistered", new Link("http://example.com/unregistered"));
+		Map<String, Link> expected = new HashMap<>();
+		expected.put(Link.REL_SELF, SELF);
+		expected.put(Link.REL_NEXT, new Link("http://example.com/next"));
+		expected.put("unregistered", new Link("http://example.com/unregistered"));
+		// exercise
+		Map<String, Link> actual = resource.getLinks();
+		// verify
+		assertThat(actual, is(expected));
+		assertThat(expected.equals(actual), is(true));
+		assertThat(actual.hashCode(), is(expected.hashCode()));
+		assertThat(resource.getLink(Link.REL_SELF), is(SELF));
+		assertThat(resource.getLink(LinkRelations.NEXT), is(new Link("http://example.com/next")));
+		assertThat(resource.getLink(LinkRelations.PREVIOUS), is(nullValue()));
+		assertThat(resource.hasLink("unregistered"), is(true));
+	}
+	
+	@Test
+	public void testLinks_Remove() {
+		// setup
+		Resource<String> resource = new Resource<>("foo")
+			.addLink(LinkRelations.SELF, SELF)
+			.addLink("unregistered", new Link("http://example.com/unregistered"));
+		// exercise
+		Iterator<Map.Entry<String, Link>> itr = resource.getLinks().entrySet().iterator();
+		itr.next();
+		itr.remove();
+		// verify
+		assertThat(resource.getLinks().size(), is(1));
+		assertThat(resource.hasLink(Link.REL_SELF), is(false));
+		resource.clearLinks();
+		assertThat(resource.hasLinks(), is(false));
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutableLink_SetHref() {
+		SELF.setHref("http://example.com/modified");
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testImmutableLink_NullHref() {
+		new ImmutableLink(null);
+	}
+	
+	@Test
+	public void testImmutableLink_EqualsLink() {
+		assertThat(new ImmutableLink("http://example.com/"), is(new Link("http://example.com/")));
+		assertThat(new Link("http://example.com/"), is(new ImmutableLink("http://example.com/")));
+	}
+	
+	@Test
+	public void testSerialize() throws Exception {
+		// setup
+		Resource<String> resource = new Resource<>("foo")
+			.addLink(LinkRelations.SELF, SELF)
+			.addLink(Link.REL_NEXT, new ImmutableLink("http://example.com/next"))
+			.addLink("unregistered", new Link("http://example.com/unregistered"));
+		Resource<String> mutable = new Resource<>("foo")
+			.addLink(LinkRelations.SELF, new Link(SELF.getHref()))
+			.addLink(Link.REL_NEXT, new Link("http://example.com/next"))
+			.addLink("unregistered", new Link("http://example.com/unregistered"));
+		// exercise
+		String actual = OM.writeValueAsString(resource);
+		// verify
+		log.info(actual);
+		assertThat(actual, is(OM.writeValueAsString(mutable)));
+		with(actual)
+			.assertThat("$._links.self.href", is(SELF.getHref()))
+			.assertThat("$._links.next.href", is("http://example.com/next"))
+			.assertThat("$._links.unregistered.href", is("http://example.com/unregistered"));
+	}
+	
+	@Test
+	public void testSerialize_Indent() throws Exception {
+		// setup
+		ObjectMapper indent = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+		Resource<String> resource = new Resource<>("foo").addLink(LinkRelations.SELF, SELF);
+		Resource<String> mutable = new Resource<>("foo").addLink(LinkRelations.SELF, new Link(SELF.getHref()));
+		// exercise
+		String actual = indent.writeValueAsString(resource);
+		// verify
+		assertThat(actual, is(indent.writeValueAsString(mutable)));
+	}
+	
+	@Test
+	public void testDeserialize() throws Exception {
+		// setup
+		Resource<String> expected = new Resource<>("foo")
+			.addLink(LinkRelations.SELF, SELF)
+			.addLink("unregistered", new Link("http://example.com/unregistered"));
+		String json = OM.writeValueAsString(expected);
+		// exercise
+		Resource<String> actual = OM.readValue(json, new TypeReference<Resource<String>>() {
+		});
+		// verify
+		assertThat(actual, is(expected));
+		assertThat(actual.getLink(LinkRelations.SELF), is(SELF));
+	}
+	
+	@Test
+	public void testValueToTree() {
+		// setup
+		Resource<String> resource = new Resource<>("foo").addLink(LinkRelations.SELF, SELF);
+		// exercise
+		JsonNode actual = OM.valueToTree(resource);
+		// verify
+		assertThat(actual.get("_links").get("self").isObject(), is(true));
+		assertThat(actual.get("_links").get("self").get("href").asText(), is(SELF.getHref()));
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testConvertValue() {
+		// setup
+		Resource<String> resource = new Resource<>("foo").addLink(LinkRelations.SELF, SELF);
+		// exercise
+		Map<String, Object> actual = OM.convertValue(resource, Map.class);
+		// verify
+		Map<String, Object> links = (Map<String, Object>) actual.get("_links");
+		assertThat(links.get("self"), is(Collections.singletonMap("href", SELF.getHref())));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddLink_NotRegistered() {
+		// exercise
+		new Resource<>("foo").addLink(LinkRelations.size(), new Link("http://example.com/"));
+	}
+	
+	@Test
+	public void testLinks_RegisteredAfterPut() throws Exception {
+		// setup
+		String rel = "http://example.com/rels/late-" + System.nanoTime();
+		Resource<String> resource = new Resource<>("foo").addLink(rel, new Link("http://example.com/1"));
+		int index = LinkRelations.register(rel);
+		// exercise
+		Link found = resource.getLink(rel);
+		resource.addLink(index, new Link("http://example.com/2"));
+		// verify
+		assertThat(found, is(new Link("http://example.com/1")));
+		assertThat(resource.hasLink(rel), is(true));
+		assertThat(resource.getLinks().size(), is(1));
+		String actual = OM.writeValueAsString(resource);
+		log.info(actual);
+		assertThat(actual.indexOf(rel), is(actual.lastIndexOf(rel)));
+		with(actual).assertThat("$._links['" + rel + "'].href", is("http://example.com/2"));
+	}
+	
+	@Test
+	public void testSerialize_RegisteredAfterPut() throws Exception {
+		// setup
+		String rel = "http://example.com/rels/late-" + System.nanoTime();
+		Resource<String> resource = new Resource<>("foo").addLink(rel, new Link("http://example.com/late"));
+		LinkRelations.register(rel);
+		resource.addLink(Link.REL_SELF, new Link("http://example.com/self"));
+		// exercise
+		String actual = OM.writeValueAsString(resource);
+		// verify
+		log.info(actual);
+		assertThat(actual.indexOf(rel), is(actual.lastIndexOf(rel)));
+		with(actual)
+			.assertThat("$._links.self.href", is("http://example.com/self"))
+			.assertThat("$._links['" + rel + "'].href", is("http://example.com/late"));
+	}
+}
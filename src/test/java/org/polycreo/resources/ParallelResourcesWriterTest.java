@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.polycreo.resources.ChunkedResources.ChunkMetadata;
+import org.polycreo.resources.ResourceTest.SampleBean;
+
+/**
+ * Test for {@link ParallelResourcesWriter}.
+ */
+public class ParallelResourcesWriterTest {
+	
+	private static final ObjectMapper OM = new ObjectMapper();
+	
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+	
+	
+	@AfterClass
+	public static void tearDown() {
+		EXECUTOR.shutdown();
+	}
+	
+	@Test
+	public void testWriteValueAsBytes_Paged() throws Exception {
+		// setup
+		PagedResources<Resource<SampleBean>> resources = new PagedResources<>("beans", createContent(10_000));
+		resources.addLink(Link.REL_SELF, new Link("http://example.com/beans"));
+		ParallelResourcesWriter sut = new ParallelResourcesWriter(OM.writer(), EXECUTOR, 4);
+		// exercise
+		byte[] actual = sut.writeValueAsBytes(resources);
+		// verify
+		assertThat(new String(actual, "UTF-8"), is(OM.writeValueAsString(resources)));
+	}
+	
+	@Test
+	public void testWrite_Chunked() throws Exception {
+		// setup
+		ChunkedResources<Resource<SampleBean>> resources = new ChunkedResources<>("beans", createContent(5_001),
+				new ChunkMetadata(5_001, "token"));
+		resources.addLink(Link.REL_NEXT, new Link("http://example.com/beans?next=token"));
+		ParallelResourcesWriter sut = new ParallelResourcesWriter(OM.writer(), EXECUTOR, 3, 100);
+		RecordingChannel channel = new RecordingChannel();
+		// exercise
+		sut.write(resources, channel);
+		sut.write(resources, channel);
+		// verify
+		String expected = OM.writeValueAsString(resources);
+		assertThat(new String(channel.bytes.toByteArray(), "UTF-8"), is(expected + expected));
+	}
+	
+	@Test
+	public void testWriteValueAsBytes_BelowThreshold() throws Exception {
+		// setup
+		PagedResources<Resource<SampleBean>> resources = new PagedResources<>("beans", createContent(3));
+		ParallelResourcesWriter sut = new ParallelResourcesWriter(OM.writer(), EXECUTOR, 4);
+		// exercise
+		byte[] actual = sut.writeValueAsBytes(resources);
+		// verify
+		assertThat(new String(actual, "UTF-8"), is(OM.writeValueAsString(resources)));
+	}
+	
+	@Test
+	public void testWriteValueAsBytes_MoreRangesThanElements() throws Exception {
+		// setup
+		PagedResources<Resource<SampleBean>> resources = new PagedResources<>("beans", createContent(2));
+		ParallelResourcesWriter sut = new ParallelResourcesWriter(OM.writer(), EXECUTOR, 8, 1);
+		// exercise
+		byte[] actual = sut.writeValueAsBytes(resources);
+		// verify
+		assertThat(new String(actual, "UTF-8"), is(OM.writeValueAsString(resources)));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstruct_Indent() {
+		// setup
+		ObjectWriter writer = OM.writer().with(SerializationFeature.INDENT_OUTPUT);
+		// exercise
+		new ParallelResourcesWriter(writer, EXECUTOR, 4);
+	}
+	
+	@Test
+	public void testWriteValueAsBytes_SameCollectionTwice() throws Exception {
+		// setup
+		List<Resource<SampleBean>> content = createContent(10);
+		Resource<String> resource = new Resource<>("foo")
+			.embedResource("beans", content)
+			.embedResource("copies", content);
+		ParallelResourcesWriter sut = new ParallelResourcesWriter(OM.writer(), EXECUTOR, 4, 1);
+		// exercise
+		byte[] actual = sut.writeValueAsBytes(resource);
+		// verify
+		assertThat(new String(actual, "UTF-8"), is(OM.writeValueAsString(resource)));
+	}
+	
+	@Test
+	public void testWriteValueAsBytes_WrapRootValue() throws Exception {
+		// setup
+		ObjectWriter writer = OM.writer().with(SerializationFeature.WRAP_ROOT_VALUE);
+		PagedResources<Resource<SampleBean>> resources = new PagedResources<>("beans", createContent(100));
+		ParallelResourcesWriter sut = new ParallelResourcesWriter(writer, EXECUTOR, 4, 1);
+		// exercise
+		byte[] actual = sut.writeValueAsBytes(resources);
+		// verify
+		assertThat(new String(actual, "UTF-8"), is(writer.writeValueAsString(resources)));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstruct_PrettyPrinter() {
+		// setup
+		ObjectWriter writer = OM.writer(new DefaultPrettyPrinter());
+		// exercise
+		new ParallelResourcesWriter(writer, EXECUTOR, 4);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstruct_MinimalPrettyPrinter() {
+		// setup
+		ObjectWriter writer = OM.writer(new MinimalPrettyPrinter());
+		// exercise
+		new ParallelResourcesWriter(writer, EXECUTOR, 4);
+	}
+	
+	private static List<Resource<SampleBean>> createContent(int size) {
+		List<Resource<SampleBean>> content = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			content.add(new Resource<>(new SampleBean("foo" + i, "bar" + i))
+				.addLink(Link.REL_SELF, new Link("http://example.com/beans/" + i)));
+		}
+		return content;
+	}
+	
+	
+	private static class RecordingChannel implements GatheringByteChannel {
+		
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		
+		@Override
+		public int write(ByteBuffer src) {
+			// write at most 1000 bytes at once to exercise partial writes
+			int length = Math.min(src.remaining(), 1000);
+			byte[] chunk = new byte[length];
+			src.get(chunk);
+			bytes.write(chunk, 0, length);
+			return length;
+		}
+		
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) {
+			for (int i = offset; i < offset + length; i++) {
+				if (srcs[i].hasRemaining()) {
+					return write(srcs[i]);
+				}
+			}
+			return 0;
+		}
+		
+		@Override
+		public long write(ByteBuffer[] srcs) {
+			return write(srcs, 0, srcs.length);
+		}
+		
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+		
+		@Override
+		public void close() {
+			// nothing to do
+		}
+	}
+}
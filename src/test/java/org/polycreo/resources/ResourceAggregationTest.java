@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.polycreo.resources.ResourceTest.SampleBean;
+
+/**
+ * Test for {@link ResourceAggregation}.
+ */
+public class ResourceAggregationTest {
+	
+	private ExecutorService executor;
+	
+	
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+	
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	@Test
+	public void testAggregate_Concurrently() {
+		// setup
+		CountDownLatch latch = new CountDownLatch(2);
+		// exercise
+		Resource<String> actual = new ResourceAggregation<>(new Resource<>("foo"), executor)
+			.timeout(Duration.ofSeconds(10))
+			.embed("aaa", () -> awaitOthers(latch, new SampleBean("aaa", "bbb")))
+			.embed("ccc", () -> awaitOthers(latch, new SampleBean("ccc", "ddd")))
+			.embed("eee", CompletableFuture.completedFuture("eee"))
+			.aggregate();
+		// verify
+		assertThat(actual.getEmbeddedResources().size(), is(3));
+		assertThat(actual.getEmbeddedResources().get("aaa"), is(new SampleBean("aaa", "bbb")));
+		assertThat(actual.getEmbeddedResources().get("ccc"), is(new SampleBean("ccc", "ddd")));
+		assertThat(actual.getEmbeddedResources().get("eee"), is("eee"));
+	}
+	
+	@Test
+	public void testAggregate_OmitFailures() {
+		// setup
+		CompletableFuture<String> late = new CompletableFuture<>();
+		// exercise
+		Resource<String> actual = new ResourceAggregation<>(new Resource<>("foo"), executor)
+			.omitFailures(true)
+			.embed("aaa", () -> "aaa")
+			.embed("late", late, Duration.ofMillis(50))
+			.embed("failed", () -> {
+				throw new IllegalStateException();
+			})
+			.aggregate();
+		// verify
+		assertThat(actual.getEmbeddedResources().size(), is(1));
+		assertThat(actual.getEmbeddedResources().get("aaa"), is("aaa"));
+		assertThat(late.isCancelled(), is(false));
+	}
+	
+	@Test
+	public void testAggregate_Failure() {
+		try {
+			// exercise
+			new ResourceAggregation<>(new Resource<>("foo"), executor)
+				.embed("failed", () -> {
+					throw new IllegalStateException();
+				})
+				.aggregate();
+			throw new AssertionError("CompletionException is expected");
+		} catch (CompletionException e) {
+			// verify
+			assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+		}
+	}
+	
+	@Test
+	public void testAggregate_Timeout() {
+		try {
+			// exercise
+			new ResourceAggregation<>(new Resource<>("foo"), executor)
+				.timeout(Duration.ofMillis(50))
+				.embed("late", new CompletableFuture<>())
+				.aggregate();
+			throw new AssertionError("CompletionException is expected");
+		} catch (CompletionException e) {
+			// verify
+			assertThat(e.getCause(), is(instanceOf(TimeoutException.class)));
+		}
+	}
+	
+	@Test
+	public void testAggregate_TimeoutInterruptsSupplier() throws Exception {
+		// setup
+		CountDownLatch interrupted = new CountDownLatch(1);
+		// exercise
+		Resource<String> actual = new ResourceAggregation<>(new Resource<>("foo"), executor)
+			.timeout(Duration.ofMillis(50))
+			.omitFailures(true)
+			.embed("late", () -> {
+				try {
+					Thread.sleep(10_000);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				return "late";
+			})
+			.aggregate();
+		// verify
+		assertThat(actual.getEmbeddedResources().containsKey("late"), is(false));
+		assertThat(interrupted.await(5, TimeUnit.SECONDS), is(true));
+	}
+	
+	@Test
+	public void testAggregate_RejectedCancelsStarted() throws Exception {
+		// setup
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		AtomicInteger submitted = new AtomicInteger();
+		Executor bounded = task -> {
+			if (submitted.incrementAndGet() > 1) {
+				awaitStarted(started);
+				throw new RejectedExecutionException();
+			}
+			executor.execute(task);
+		};
+		try {
+			// exercise
+			new ResourceAggregation<>(new Resource<>("foo"), bounded)
+				.embed("running", () -> {
+					started.countDown();
+					try {
+						Thread.sleep(10_000);
+					} catch (InterruptedException e) {
+						interrupted.countDown();
+					}
+					return "running";
+				})
+				.embed("rejected", () -> "rejected")
+				.aggregate();
+			throw new AssertionError("RejectedExecutionException is expected");
+		} catch (RejectedExecutionException e) {
+			// verify
+			assertThat(interrupted.await(5, TimeUnit.SECONDS), is(true));
+		}
+	}
+	
+	private static <V> V awaitOthers(CountDownLatch latch, V value) {
+		latch.countDown();
+		try {
+			if (latch.await(5, TimeUnit.SECONDS) == false) {
+				throw new IllegalStateException("relations are not resolved concurrently");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		return value;
+	}
+	
+	private static void awaitStarted(CountDownLatch latch) {
+		try {
+			if (latch.await(5, TimeUnit.SECONDS) == false) {
+				throw new IllegalStateException("the supplier is not started");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Arrays;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.polycreo.resources.ResourceTest.SampleBean;
+
+/**
+ * Test for {@link ResourceWarmer}.
+ */
+@Slf4j
+public class ResourceWarmerTest {
+	
+	private static final ObjectMapper OM = new ObjectMapper()
+		.configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
+	
+	
+	@Test
+	public void testWriterFor_Cached() throws Exception {
+		// setup
+		ResourceWarmer sut = new ResourceWarmer(OM).warmUp(SampleBean.class);
+		// exercise
+		ObjectWriter actual1 = sut.writerFor(new TypeReference<PagedResources<Resource<SampleBean>>>() {
+		});
+		ObjectWriter actual2 = sut.writerFor(new TypeReference<PagedResources<Resource<SampleBean>>>() {
+		});
+		// verify
+		assertThat(actual1, is(sameInstance(actual2)));
+	}
+	
+	@Test
+	public void testWriterFor_Serialize() throws Exception {
+		// setup
+		ResourceWarmer sut = new ResourceWarmer(OM).warmUp(SampleBean.class);
+		PagedResources<Resource<SampleBean>> resources = new PagedResources<>("beans", Arrays.asList(
+				new Resource<>(new SampleBean("aaa", "bbb")),
+				new Resource<>(new SampleBean("ccc", "ddd"))));
+		// exercise
+		String actual = sut.writerFor(new TypeReference<PagedResources<Resource<SampleBean>>>() {
+		}).writeValueAsString(resources);
+		// verify
+		log.info(actual);
+		assertThat(actual, is(OM.writeValueAsString(resources)));
+	}
+	
+	@Test
+	public void testReaderFor_Deserialize() throws Exception {
+		// setup
+		ResourceWarmer sut = new ResourceWarmer(OM).warmUp(SampleBean.class);
+		String json = "{"
+				+ "  'foo': 'aaa',"
+				+ "  'bar': 'bbb',"
+				+ "  '_links': {"
+				+ "    'self': { 'href': 'http://example.com/self' }"
+				+ "  }"
+				+ "}";
+		ObjectReader reader = sut.readerFor(new TypeReference<Resource<SampleBean>>() {
+		});
+		// exercise
+		Resource<SampleBean> actual = reader.readValue(json);
+		// verify
+		assertThat(actual, is(new Resource<>(new SampleBean("aaa", "bbb"))
+			.addLink(Link.REL_SELF, new Link("http://example.com/self"))));
+		assertThat(reader, is(sameInstance(sut.readerFor(new TypeReference<Resource<SampleBean>>() {
+		}))));
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.polycreo.resources;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.polycreo.resources.ResourceTest.SampleBean;
+
+/**
+ * Test for {@link ResourceWriter}.
+ */
+public class ResourceWriterTest {
+	
+	private static final ObjectMapper OM = new ObjectMapper();
+	
+	
+	@Test
+	public void testWrite_HeapBuffer() throws Exception {
+		// setup
+		ResourceWriter sut = new ResourceWriter(OM.writer());
+		ByteBuffer target = ByteBuffer.allocate(4096);
+		// exercise
+		int actual1 = sut.write(createResources(), target);
+		int actual2 = sut.write(createResources(), target);
+		// verify
+		byte[] expected = OM.writeValueAsBytes(createResources());
+		assertThat(actual1, is(expected.length));
+		assertThat(actual2, is(expected.length));
+		assertThat(toString(target), is(new String(expected, "UTF-8") + new String(expected, "UTF-8")));
+	}
+	
+	@Test
+	public void testWrite_DirectBuffer() throws Exception {
+		// setup
+		ResourceWriter sut = new ResourceWriter(OM.writer());
+		ByteBuffer target = ByteBuffer.allocateDirect(4096);
+		// exercise
+		sut.write(createResources(), target);
+		// verify
+		assertThat(toString(target), is(OM.writeValueAsString(createResources())));
+	}
+	
+	@Test
+	public void testWrite_Overflow() throws Exception {
+		// setup
+		ResourceWriter sut = new ResourceWriter(OM.writer());
+		ByteBuffer target = ByteBuffer.allocate(8);
+		target.put((byte) 'x');
+		// exercise
+		try {
+			sut.write(createResources(), target);
+			throw new AssertionError("expected BufferOverflowException");
+		} catch (BufferOverflowException e) {
+			// verify
+			assertThat(target.position(), is(1));
+		}
+	}
+	
+	@Test
+	public void testWrite_OverflowInTheMiddle() throws Exception {
+		// setup
+		List<Resource<SampleBean>> beans = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			beans.add(new Resource<>(new SampleBean("aaa" + i, "bbb" + i)));
+		}
+		ResourceWriter sut = new ResourceWriter(OM.writer());
+		ByteBuffer target = ByteBuffer.allocateDirect(16384);
+		target.put((byte) 'x');
+		// exercise
+		try {
+			sut.write(new PagedResources<>("beans", beans), target);
+			throw new AssertionError("expected BufferOverflowException");
+		} catch (BufferOverflowException e) {
+			// verify
+			assertThat(target.position(), is(1));
+		}
+		sut.write(createResources(), target);
+		assertThat(toString(target), is("x" + OM.writeValueAsString(createResources())));
+	}
+	
+	@Test
+	public void testWrite_AfterFailure() throws Exception {
+		// setup
+		ResourceWriter sut = new ResourceWriter(OM.writer());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			sut.write(new Resource<>(new FailingBean()), out);
+			throw new AssertionError("expected JsonMappingException");
+		} catch (JsonMappingException e) {
+			// expected
+		}
+		// exercise
+		sut.write(createResources(), out);
+		// verify
+		assertThat(out.toString("UTF-8"), is(OM.writeValueAsString(createResources())));
+	}
+	
+	@Test
+	public void testWrite_PrettyPrinter() throws Exception {
+		// setup
+		ObjectWriter writer = OM.writerWithDefaultPrettyPrinter();
+		ResourceWriter sut = new ResourceWriter(writer);
+		ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+		ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+		// exercise
+		sut.write(createResources(), out1);
+		sut.write(createResources(), out2);
+		// verify
+		assertThat(out1.toString("UTF-8"), is(writer.writeValueAsString(createResources())));
+		assertThat(out2.toString("UTF-8"), is(writer.writeValueAsString(createResources())));
+	}
+	
+	@Test
+	public void testWrite_Channel() throws Exception {
+		// setup
+		ResourceWriter sut = new ResourceWriter(OM.writer());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		// exercise
+		int actual = sut.write(createResources(), Channels.newChannel(out));
+		// verify
+		assertThat(actual, is(out.size()));
+		assertThat(out.toString("UTF-8"), is(OM.writeValueAsString(createResources())));
+	}
+	
+	@Test
+	public void testWrite_Concurrent() throws Exception {
+		// setup
+		ResourceWriter sut = new ResourceWriter(OM.writer());
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Callable<String>> tasks = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			String foo = "foo" + i;
+			tasks.add(() -> {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				sut.write(new Resource<>(new SampleBean(foo, "bar")), out);
+				return out.toString("UTF-8");
+			});
+		}
+		try {
+			// exercise
+			List<Future<String>> actual = executor.invokeAll(tasks);
+			// verify
+			for (int i = 0; i < actual.size(); i++) {
+				String expected = OM.writeValueAsString(new Resource<>(new SampleBean("foo" + i, "bar")));
+				assertThat(actual.get(i).get(), is(expected));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	private static PagedResources<Resource<SampleBean>> createResources() {
+		PagedResources<Resource<SampleBean>> resources = new PagedResources<>("beans", Arrays.asList(
+				new Resource<>(new SampleBean("aaa", "bbb")),
+				new Resource<>(new SampleBean("ccc", "ddd"))));
+		resources.addLink(Link.REL_SELF, new Link("http://example.com/beans"));
+		return resources;
+	}
+	
+	private static String toString(ByteBuffer buffer) throws Exception {
+		buffer.flip();
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return new String(bytes, "UTF-8");
+	}
+	
+	
+	public static class FailingBean {
+		
+		public String getFoo() {
+			return "foo";
+		}
+		
+		public String getBar() {
+			throw new IllegalStateException("failure");
+		}
+	}
+}